@@ -37,13 +37,20 @@ if [ -n "$OS_ID" ] && [ -n "$ARCH_ID" ] && [ -d "$LWJGL_DIR/natives/${OS_ID}-${A
 fi
 
 MODE=${1:-single}
+[ $# -gt 0 ] && shift
 MAIN_CLASS="com.gameengine.example.GameExample"
 if [ "$MODE" = "server" ]; then
   MAIN_CLASS="com.gameengine.example.ServerLauncher"
+elif [ "$MODE" = "headless" ]; then
+  # 无窗口模拟：./run.sh headless [ticks] [tickRate] [paced]
+  MAIN_CLASS="com.gameengine.example.HeadlessLauncher"
+elif [ "$MODE" = "netbench" ]; then
+  # 网络反应器扩展性基准：./run.sh netbench [clients] [seconds] [ioThreads,...]
+  MAIN_CLASS="com.gameengine.example.NetBenchmark"
 fi
 
 if [[ "$OS" == Darwin* ]] && [ "$MAIN_CLASS" = "com.gameengine.example.GameExample" ]; then
-  exec java -XstartOnFirstThread $JAVA_FLAGS -cp "$CLASSPATH" "$MAIN_CLASS"
+  exec java -XstartOnFirstThread $JAVA_FLAGS -cp "$CLASSPATH" "$MAIN_CLASS" "$@"
 else
-  exec java $JAVA_FLAGS -cp "$CLASSPATH" "$MAIN_CLASS"
+  exec java $JAVA_FLAGS -cp "$CLASSPATH" "$MAIN_CLASS" "$@"
 fi
@@ -0,0 +1,169 @@
+package com.gameengine.components;
+
+import com.gameengine.core.GameObject;
+import com.gameengine.scene.SceneListener;
+
+import java.util.Arrays;
+
+/**
+ * 可选的稠密存储后端（Structure of Arrays）：
+ * 位置、速度、加速度、摩擦、重力按实体槽位保存在并行的 float[] 中，
+ * TransformComponent / PhysicsComponent 绑定后只是这些数组的视图。
+ * 通过 scene.addListener(storage) 启用：对象加入场景时分配槽位并绑定，离开时写回组件并释放槽位；
+ * 每次场景更新后由 integrate() 以紧凑循环统一积分（绑定后 PhysicsComponent.update 不再单独积分）。
+ */
+public class BodyStorage implements SceneListener {
+    static final byte HAS_TRANSFORM = 1;
+    static final byte HAS_PHYSICS = 2;
+    static final byte PHYSICS_ENABLED = 4;
+    static final byte USE_GRAVITY = 8;
+
+    // 组件视图在同一包内直接读写这些数组
+    float[] px, py;
+    float[] vx, vy;
+    float[] ax, ay;
+    float[] friction;
+    float[] gx, gy;
+    byte[] flags;
+
+    // 槽位分配：high 为已使用过的最大槽位数，释放的槽位进入空闲栈复用
+    private int high;
+    private int[] freeSlots;
+    private int freeCount;
+    private int liveCount;
+
+    public BodyStorage() {
+        this(256);
+    }
+
+    public BodyStorage(int initialCapacity) {
+        int cap = Math.max(16, initialCapacity);
+        px = new float[cap]; py = new float[cap];
+        vx = new float[cap]; vy = new float[cap];
+        ax = new float[cap]; ay = new float[cap];
+        friction = new float[cap];
+        gx = new float[cap]; gy = new float[cap];
+        flags = new byte[cap];
+        freeSlots = new int[cap];
+    }
+
+    /**
+     * 分配一个清零的槽位
+     */
+    public int allocate() {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (high == flags.length) grow();
+            slot = high++;
+        }
+        px[slot] = 0; py[slot] = 0;
+        vx[slot] = 0; vy[slot] = 0;
+        ax[slot] = 0; ay[slot] = 0;
+        friction[slot] = 0;
+        gx[slot] = 0; gy[slot] = 0;
+        flags[slot] = 0;
+        liveCount++;
+        return slot;
+    }
+
+    public void release(int slot) {
+        flags[slot] = 0;
+        if (freeCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        freeSlots[freeCount++] = slot;
+        liveCount--;
+    }
+
+    /**
+     * 物理积分：与 PhysicsComponent.update 相同的运算顺序（v += a*dt; v *= friction; p += v*dt; a = 0）
+     */
+    public void integrate(float dt) {
+        final byte need = HAS_TRANSFORM | HAS_PHYSICS | PHYSICS_ENABLED;
+        final int n = high;
+        final byte[] f = flags;
+        for (int i = 0; i < n; i++) {
+            int fl = f[i];
+            if ((fl & need) != need) continue;
+            float accX = ax[i];
+            float accY = ay[i];
+            if ((fl & USE_GRAVITY) != 0) {
+                accX += gx[i];
+                accY += gy[i];
+            }
+            float velX = (vx[i] + accX * dt) * friction[i];
+            float velY = (vy[i] + accY * dt) * friction[i];
+            vx[i] = velX;
+            vy[i] = velY;
+            px[i] += velX * dt;
+            py[i] += velY * dt;
+            ax[i] = 0;
+            ay[i] = 0;
+        }
+    }
+
+    /**
+     * 边界反弹与位置修正（对应 GameLogic.updatePhysics 的逐组件逻辑）
+     */
+    public void bounce(float minX, float minY, float maxX, float maxY) {
+        final byte need = HAS_TRANSFORM | HAS_PHYSICS;
+        final int n = high;
+        final byte[] f = flags;
+        for (int i = 0; i < n; i++) {
+            if ((f[i] & need) != need) continue;
+            float x = px[i];
+            float y = py[i];
+            if (x <= minX || x >= maxX) vx[i] = -vx[i];
+            if (y <= minY || y >= maxY) vy[i] = -vy[i];
+            px[i] = x < minX ? minX : (x > maxX ? maxX : x);
+            py[i] = y < minY ? minY : (y > maxY ? maxY : y);
+        }
+    }
+
+    @Override
+    public void objectAdded(GameObject obj) {
+        TransformComponent t = obj.getComponent(TransformComponent.TYPE);
+        PhysicsComponent p = obj.getComponent(PhysicsComponent.TYPE);
+        if (t == null && p == null) return;
+        if ((t != null && t.isBound()) || (p != null && p.isBound())) return;
+        int slot = allocate();
+        if (t != null) t.bind(this, slot);
+        if (p != null) p.bind(this, slot);
+    }
+
+    @Override
+    public void objectRemoved(GameObject obj) {
+        TransformComponent t = obj.getComponent(TransformComponent.TYPE);
+        PhysicsComponent p = obj.getComponent(PhysicsComponent.TYPE);
+        int slot = -1;
+        if (t != null && t.getStorage() == this) { slot = t.getSlot(); t.unbind(); }
+        if (p != null && p.getStorage() == this) { slot = p.getSlot(); p.unbind(); }
+        if (slot >= 0) release(slot);
+    }
+
+    @Override
+    public void afterUpdate(float deltaTime) {
+        integrate(deltaTime);
+    }
+
+    /**
+     * 当前占用的槽位数
+     */
+    public int size() {
+        return liveCount;
+    }
+
+    public int capacity() {
+        return flags.length;
+    }
+
+    private void grow() {
+        int n = flags.length * 2;
+        px = Arrays.copyOf(px, n); py = Arrays.copyOf(py, n);
+        vx = Arrays.copyOf(vx, n); vy = Arrays.copyOf(vy, n);
+        ax = Arrays.copyOf(ax, n); ay = Arrays.copyOf(ay, n);
+        friction = Arrays.copyOf(friction, n);
+        gx = Arrays.copyOf(gx, n); gy = Arrays.copyOf(gy, n);
+        flags = Arrays.copyOf(flags, n);
+    }
+}
@@ -1,11 +1,14 @@
 package com.gameengine.components;
 
 import com.gameengine.core.Component;
+import com.gameengine.core.ComponentType;
 
 /**
  * Health component to track HP and handle damage
  */
 public class HealthComponent extends Component<HealthComponent> {
+    public static final ComponentType<HealthComponent> TYPE = ComponentType.of(HealthComponent.class);
+
     private int maxHp;
     private int hp;
 
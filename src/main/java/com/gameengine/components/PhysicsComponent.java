@@ -1,6 +1,7 @@
 package com.gameengine.components;
 
 import com.gameengine.core.Component;
+import com.gameengine.core.ComponentType;
 import com.gameengine.core.GameObject;
 import com.gameengine.math.Vector2;
 
@@ -8,12 +9,17 @@ import com.gameengine.math.Vector2;
  * 物理组件，处理物理运动
  */
 public class PhysicsComponent extends Component<PhysicsComponent> {
+    public static final ComponentType<PhysicsComponent> TYPE = ComponentType.of(PhysicsComponent.class);
+
     private Vector2 velocity;
     private Vector2 acceleration;
     private float mass;
     private float friction;
     private boolean useGravity;
     private Vector2 gravity;
+    // 绑定到稠密存储后，速度/加速度/摩擦/重力保存在 storage 的数组中，积分由 BodyStorage.integrate 统一完成
+    private BodyStorage storage;
+    private int slot = -1;
     
     public PhysicsComponent() {
         this.velocity = new Vector2();
@@ -37,27 +43,27 @@ public class PhysicsComponent extends Component<PhysicsComponent> {
     @Override
     public void update(float deltaTime) {
         if (!enabled) return;
+        if (storage != null) return; // 由 BodyStorage.integrate 批量积分
         
-        TransformComponent transform = owner.getComponent(TransformComponent.class);
+        TransformComponent transform = owner.getComponent(TransformComponent.TYPE);
         if (transform == null) return;
         
         // 应用重力
         if (useGravity) {
-            acceleration = acceleration.add(gravity);
+            acceleration.addLocal(gravity);
         }
         
         // 更新速度
-        velocity = velocity.add(acceleration.multiply(deltaTime));
+        velocity.addScaledLocal(acceleration, deltaTime);
         
         // 应用摩擦力
-        velocity = velocity.multiply(friction);
+        velocity.scaleLocal(friction);
         
         // 更新位置
-        Vector2 deltaPosition = velocity.multiply(deltaTime);
-        transform.translate(deltaPosition);
+        transform.translate(velocity.x * deltaTime, velocity.y * deltaTime);
         
         // 重置加速度
-        acceleration = new Vector2();
+        acceleration.set(0, 0);
     }
     
     @Override
@@ -65,12 +71,44 @@ public class PhysicsComponent extends Component<PhysicsComponent> {
         // 物理组件不直接渲染
     }
     
+    /**
+     * 清空运动状态并重新启用（对象池复用）
+     */
+    public void reset() {
+        setVelocity(0, 0);
+        if (storage != null) {
+            storage.ax[slot] = 0;
+            storage.ay[slot] = 0;
+        } else {
+            acceleration.set(0, 0);
+        }
+        setEnabled(true);
+    }
+
+    @Override
+    public void destroy() {
+        super.destroy();
+        syncEnabledFlag();
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        super.setEnabled(enabled);
+        syncEnabledFlag();
+    }
+
     /**
      * 应用力
      */
     public void applyForce(Vector2 force) {
         if (mass > 0) {
-            acceleration = acceleration.add(force.multiply(1.0f / mass));
+            float inv = 1.0f / mass;
+            if (storage != null) {
+                storage.ax[slot] += force.x * inv;
+                storage.ay[slot] += force.y * inv;
+                return;
+            }
+            acceleration.addScaledLocal(force, inv);
         }
     }
     
@@ -79,7 +117,13 @@ public class PhysicsComponent extends Component<PhysicsComponent> {
      */
     public void applyImpulse(Vector2 impulse) {
         if (mass > 0) {
-            velocity = velocity.add(impulse.multiply(1.0f / mass));
+            float inv = 1.0f / mass;
+            if (storage != null) {
+                storage.vx[slot] += impulse.x * inv;
+                storage.vy[slot] += impulse.y * inv;
+                return;
+            }
+            velocity.addScaledLocal(impulse, inv);
         }
     }
     
@@ -87,21 +131,31 @@ public class PhysicsComponent extends Component<PhysicsComponent> {
      * 设置速度
      */
     public void setVelocity(Vector2 velocity) {
-        this.velocity = new Vector2(velocity);
+        setVelocity(velocity.x, velocity.y);
     }
     
     /**
      * 设置速度
      */
     public void setVelocity(float x, float y) {
-        this.velocity = new Vector2(x, y);
+        if (storage != null) {
+            storage.vx[slot] = x;
+            storage.vy[slot] = y;
+            return;
+        }
+        velocity.set(x, y);
     }
     
     /**
      * 添加速度
      */
     public void addVelocity(Vector2 delta) {
-        this.velocity = velocity.add(delta);
+        if (storage != null) {
+            storage.vx[slot] += delta.x;
+            storage.vy[slot] += delta.y;
+            return;
+        }
+        velocity.addLocal(delta);
     }
     
     /**
@@ -109,6 +163,10 @@ public class PhysicsComponent extends Component<PhysicsComponent> {
      */
     public void setGravity(Vector2 gravity) {
         this.gravity = new Vector2(gravity);
+        if (storage != null) {
+            storage.gx[slot] = gravity.x;
+            storage.gy[slot] = gravity.y;
+        }
     }
     
     /**
@@ -116,6 +174,10 @@ public class PhysicsComponent extends Component<PhysicsComponent> {
      */
     public void setUseGravity(boolean useGravity) {
         this.useGravity = useGravity;
+        if (storage != null) {
+            if (useGravity) storage.flags[slot] |= BodyStorage.USE_GRAVITY;
+            else storage.flags[slot] &= ~BodyStorage.USE_GRAVITY;
+        }
     }
     
     /**
@@ -123,6 +185,7 @@ public class PhysicsComponent extends Component<PhysicsComponent> {
      */
     public void setFriction(float friction) {
         this.friction = Math.max(0, Math.min(1, friction));
+        if (storage != null) storage.friction[slot] = this.friction;
     }
     
     /**
@@ -131,13 +194,84 @@ public class PhysicsComponent extends Component<PhysicsComponent> {
     public void setMass(float mass) {
         this.mass = Math.max(0.1f, mass);
     }
+
+    /**
+     * 绑定到稠密存储的槽位（当前运动状态写入数组）
+     */
+    void bind(BodyStorage storage, int slot) {
+        storage.vx[slot] = velocity.x;
+        storage.vy[slot] = velocity.y;
+        storage.ax[slot] = acceleration.x;
+        storage.ay[slot] = acceleration.y;
+        storage.friction[slot] = friction;
+        storage.gx[slot] = gravity.x;
+        storage.gy[slot] = gravity.y;
+        storage.flags[slot] |= BodyStorage.HAS_PHYSICS;
+        this.storage = storage;
+        this.slot = slot;
+        setUseGravity(useGravity);
+        syncEnabledFlag();
+    }
+
+    /**
+     * 解除绑定（运动状态写回组件自身）
+     */
+    void unbind() {
+        if (storage == null) return;
+        this.velocity = new Vector2(storage.vx[slot], storage.vy[slot]);
+        this.acceleration = new Vector2(storage.ax[slot], storage.ay[slot]);
+        storage.flags[slot] &= ~(BodyStorage.HAS_PHYSICS | BodyStorage.PHYSICS_ENABLED | BodyStorage.USE_GRAVITY);
+        this.storage = null;
+        this.slot = -1;
+    }
+
+    public boolean isBound() {
+        return storage != null;
+    }
+
+    BodyStorage getStorage() {
+        return storage;
+    }
+
+    int getSlot() {
+        return slot;
+    }
+
+    private void syncEnabledFlag() {
+        if (storage == null) return;
+        if (enabled) storage.flags[slot] |= BodyStorage.PHYSICS_ENABLED;
+        else storage.flags[slot] &= ~BodyStorage.PHYSICS_ENABLED;
+    }
     
     // Getters
     public Vector2 getVelocity() {
+        if (storage != null) return new Vector2(storage.vx[slot], storage.vy[slot]);
         return new Vector2(velocity);
     }
     
+    /**
+     * 读取速度到调用方提供的对象（不分配）
+     */
+    public Vector2 getVelocity(Vector2 dest) {
+        return dest.set(getVelocityX(), getVelocityY());
+    }
+
+    /**
+     * 速度 x 分量（不拷贝）
+     */
+    public float getVelocityX() {
+        return storage != null ? storage.vx[slot] : velocity.x;
+    }
+
+    /**
+     * 速度 y 分量（不拷贝）
+     */
+    public float getVelocityY() {
+        return storage != null ? storage.vy[slot] : velocity.y;
+    }
+    
     public Vector2 getAcceleration() {
+        if (storage != null) return new Vector2(storage.ax[slot], storage.ay[slot]);
         return new Vector2(acceleration);
     }
     
@@ -1,6 +1,7 @@
 package com.gameengine.components;
 
 import com.gameengine.core.Component;
+import com.gameengine.core.ComponentType;
 import com.gameengine.core.GameObject;
 import com.gameengine.math.Vector2;
 
@@ -8,6 +9,8 @@ import com.gameengine.math.Vector2;
  * Simple projectile component that moves straight and has damage
  */
 public class ProjectileComponent extends Component<ProjectileComponent> {
+    public static final ComponentType<ProjectileComponent> TYPE = ComponentType.of(ProjectileComponent.class);
+
     private Vector2 velocity;
     private float lifeTime;
     private int damage;
@@ -22,6 +25,25 @@ public class ProjectileComponent extends Component<ProjectileComponent> {
         this.shooter = shooter;
     }
 
+    /**
+     * 重置为新发射的状态（对象池复用）
+     */
+    public void reset(Vector2 velocity, float lifeTime, int damage, GameObject shooter) {
+        this.velocity.set(velocity);
+        this.lifeTime = lifeTime;
+        this.damage = damage;
+        this.age = 0f;
+        this.shooter = shooter;
+        this.enabled = true;
+    }
+
+    /**
+     * 归还对象池时释放对发射者的引用
+     */
+    public void clearShooter() {
+        this.shooter = null;
+    }
+
     @Override
     public void initialize() {
     }
@@ -30,9 +52,9 @@ public class ProjectileComponent extends Component<ProjectileComponent> {
     public void update(float deltaTime) {
         if (!enabled) return;
         age += deltaTime;
-        TransformComponent transform = owner.getComponent(TransformComponent.class);
+        TransformComponent transform = owner.getComponent(TransformComponent.TYPE);
         if (transform != null) {
-            transform.translate(velocity.multiply(deltaTime));
+            transform.translate(velocity.x * deltaTime, velocity.y * deltaTime);
         }
         if (age >= lifeTime) {
             owner.destroy();
@@ -41,8 +63,9 @@ public class ProjectileComponent extends Component<ProjectileComponent> {
 
         // remove if out of screen bounds (simple guard)
         if (transform != null) {
-            Vector2 p = transform.getPosition();
-            if (p.x < -50 || p.y < -50 || p.x > 850 || p.y > 650) {
+            float px = transform.getX();
+            float py = transform.getY();
+            if (px < -50 || py < -50 || px > 850 || py > 650) {
                 owner.destroy();
             }
         }
@@ -50,8 +73,8 @@ public class ProjectileComponent extends Component<ProjectileComponent> {
 
     @Override
     public void render() {
-        TransformComponent t = owner.getComponent(TransformComponent.class);
-        RenderComponent r = owner.getComponent(RenderComponent.class);
+        TransformComponent t = owner.getComponent(TransformComponent.TYPE);
+        RenderComponent r = owner.getComponent(RenderComponent.TYPE);
         if (t != null && r != null && r.isVisible()) {
             // projectile render delegated to render component
         }
@@ -1,6 +1,7 @@
 package com.gameengine.components;
 
 import com.gameengine.core.Component;
+import com.gameengine.core.ComponentType;
 import com.gameengine.core.GameObject;
 import com.gameengine.graphics.IRenderer;
 import com.gameengine.math.Vector2;
@@ -9,6 +10,10 @@ import com.gameengine.math.Vector2;
  * 渲染组件，负责对象的渲染
  */
 public class RenderComponent extends Component<RenderComponent> {
+    public static final ComponentType<RenderComponent> TYPE = ComponentType.of(RenderComponent.class);
+    // 固定步长模式下由 GameEngine 每帧设置；1 表示直接绘制当前位置
+    private static volatile float interpolationAlpha = 1.0f;
+
     private IRenderer renderer;
     private RenderType renderType;
     private Vector2 size;
@@ -74,34 +79,46 @@ public class RenderComponent extends Component<RenderComponent> {
             return;
         }
         
-        TransformComponent transform = owner.getComponent(TransformComponent.class);
+        TransformComponent transform = owner.getComponent(TransformComponent.TYPE);
         if (transform == null) {
             return;
         }
         
-        Vector2 position = transform.getPosition();
+        float px = transform.getInterpolatedX(interpolationAlpha);
+        float py = transform.getInterpolatedY(interpolationAlpha);
         
         switch (renderType) {
             case RECTANGLE:
-                renderer.drawRect(position.x, position.y, size.x, size.y, 
+                renderer.drawRect(px, py, size.x, size.y, 
                                 color.r, color.g, color.b, color.a);
                 break;
             case CIRCLE:
-                renderer.drawCircle(position.x + size.x/2, position.y + size.y/2, 
+                renderer.drawCircle(px + size.x/2, py + size.y/2, 
                                   size.x/2, 16, color.r, color.g, color.b, color.a);
                 break;
             case TRIANGLE:
                 // draw triangle centered at position + size/2, use stored rotation
-                renderer.drawTriangle(position.x + size.x/2, position.y + size.y/2, Math.max(size.x, size.y), rotation, color.r, color.g, color.b, color.a);
+                renderer.drawTriangle(px + size.x/2, py + size.y/2, Math.max(size.x, size.y), rotation, color.r, color.g, color.b, color.a);
                 break;
             case LINE:
-                renderer.drawLine(position.x, position.y, 
-                                position.x + size.x, position.y + size.y,
+                renderer.drawLine(px, py, 
+                                px + size.x, py + size.y,
                                 color.r, color.g, color.b, color.a);
                 break;
         }
     }
     
+    /**
+     * 设置渲染插值系数（0..1），所有渲染组件共享
+     */
+    public static void setInterpolationAlpha(float alpha) {
+        interpolationAlpha = alpha < 0f ? 0f : (alpha > 1f ? 1f : alpha);
+    }
+
+    public static float getInterpolationAlpha() {
+        return interpolationAlpha;
+    }
+    
     /**
      * 设置渲染器
      */
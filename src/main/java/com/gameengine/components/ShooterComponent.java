@@ -1,12 +1,15 @@
 package com.gameengine.components;
 
 import com.gameengine.core.Component;
+import com.gameengine.core.ComponentType;
 import com.gameengine.math.Vector2;
 
 /**
  * ShooterComponent gives an object ability to shoot with independent cooldown.
  */
 public class ShooterComponent extends Component<ShooterComponent> {
+    public static final ComponentType<ShooterComponent> TYPE = ComponentType.of(ShooterComponent.class);
+
     private float cooldown; // seconds between shots
     private float timer;
     private int damage;
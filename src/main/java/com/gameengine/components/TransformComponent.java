@@ -1,6 +1,7 @@
 package com.gameengine.components;
 
 import com.gameengine.core.Component;
+import com.gameengine.core.ComponentType;
 import com.gameengine.core.GameObject;
 import com.gameengine.math.Vector2;
 
@@ -8,9 +9,17 @@ import com.gameengine.math.Vector2;
  * 变换组件，管理位置、旋转、缩放
  */
 public class TransformComponent extends Component<TransformComponent> {
+    public static final ComponentType<TransformComponent> TYPE = ComponentType.of(TransformComponent.class);
+
     private Vector2 position;
     private Vector2 scale;
     private float rotation;
+    // 绑定到稠密存储后，位置保存在 storage 的数组中（position 字段不再使用）
+    private BodyStorage storage;
+    private int slot = -1;
+    // 上一次模拟 tick 之前的位置，用于固定步长模式下的渲染插值
+    private float prevX, prevY;
+    private boolean hasPrevious;
     
     public TransformComponent() {
         this.position = new Vector2();
@@ -48,14 +57,26 @@ public class TransformComponent extends Component<TransformComponent> {
      * 移动到指定位置
      */
     public void moveTo(Vector2 newPosition) {
-        this.position = new Vector2(newPosition);
+        setPosition(newPosition.x, newPosition.y);
     }
     
     /**
      * 移动相对距离
      */
     public void translate(Vector2 delta) {
-        this.position = position.add(delta);
+        translate(delta.x, delta.y);
+    }
+
+    /**
+     * 移动相对距离（不分配对象）
+     */
+    public void translate(float dx, float dy) {
+        if (storage != null) {
+            storage.px[slot] += dx;
+            storage.py[slot] += dy;
+            return;
+        }
+        position.addLocal(dx, dy);
     }
     
     /**
@@ -86,13 +107,112 @@ public class TransformComponent extends Component<TransformComponent> {
         this.scale = new Vector2(newScale);
     }
     
+    /**
+     * 绑定到稠密存储的槽位（当前位置写入数组）
+     */
+    void bind(BodyStorage storage, int slot) {
+        storage.px[slot] = position.x;
+        storage.py[slot] = position.y;
+        storage.flags[slot] |= BodyStorage.HAS_TRANSFORM;
+        this.storage = storage;
+        this.slot = slot;
+    }
+
+    /**
+     * 解除绑定（位置写回组件自身）
+     */
+    void unbind() {
+        if (storage == null) return;
+        this.position = new Vector2(storage.px[slot], storage.py[slot]);
+        storage.flags[slot] &= ~BodyStorage.HAS_TRANSFORM;
+        this.storage = null;
+        this.slot = -1;
+    }
+
+    public boolean isBound() {
+        return storage != null;
+    }
+
+    BodyStorage getStorage() {
+        return storage;
+    }
+
+    int getSlot() {
+        return slot;
+    }
+
     // Getters and Setters
     public Vector2 getPosition() {
+        if (storage != null) return new Vector2(storage.px[slot], storage.py[slot]);
         return new Vector2(position);
     }
     
     public void setPosition(Vector2 position) {
-        this.position = new Vector2(position);
+        setPosition(position.x, position.y);
+    }
+
+    public void setPosition(float x, float y) {
+        if (storage != null) {
+            storage.px[slot] = x;
+            storage.py[slot] = y;
+            return;
+        }
+        position.set(x, y);
+    }
+
+    /**
+     * 读取位置到调用方提供的对象（不分配）
+     */
+    public Vector2 getPosition(Vector2 dest) {
+        return dest.set(getX(), getY());
+    }
+
+    /**
+     * 位置 x 分量（不拷贝）
+     */
+    public float getX() {
+        return storage != null ? storage.px[slot] : position.x;
+    }
+
+    /**
+     * 位置 y 分量（不拷贝）
+     */
+    public float getY() {
+        return storage != null ? storage.py[slot] : position.y;
+    }
+    
+    /**
+     * 记录当前位置作为插值起点（由引擎在每次固定步长 tick 前调用）
+     */
+    public void savePrevious() {
+        prevX = getX();
+        prevY = getY();
+        hasPrevious = true;
+    }
+
+    /**
+     * 瞬移后调用：丢弃插值起点，下一帧直接绘制在当前位置
+     */
+    public void snapPrevious() {
+        hasPrevious = false;
+    }
+
+    /**
+     * 插值后的 x：prev + (current - prev) * alpha
+     */
+    public float getInterpolatedX(float alpha) {
+        float x = getX();
+        if (!hasPrevious || alpha >= 1.0f) return x;
+        return prevX + (x - prevX) * alpha;
+    }
+
+    /**
+     * 插值后的 y：prev + (current - prev) * alpha
+     */
+    public float getInterpolatedY(float alpha) {
+        float y = getY();
+        if (!hasPrevious || alpha >= 1.0f) return y;
+        return prevY + (y - prevY) * alpha;
     }
     
     public Vector2 getScale() {
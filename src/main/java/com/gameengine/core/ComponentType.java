@@ -0,0 +1,92 @@
+package com.gameengine.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 组件类型注册表：为每个 Component 子类分配一个稠密的整数 id。
+ * GameObject 以 id 为下标维护组件槽位表，按类型查找只需一次数组访问。
+ * 热点循环中建议使用各组件类上缓存的 TYPE 常量，例如
+ * {@code obj.getComponent(TransformComponent.TYPE)}。
+ * @param <T> 组件类型
+ */
+public final class ComponentType<T extends Component<T>> {
+    private static final Object LOCK = new Object();
+    private static int nextId = 0;
+
+    private static final ClassValue<ComponentType<?>> REGISTRY = new ClassValue<ComponentType<?>>() {
+        @Override
+        protected ComponentType<?> computeValue(Class<?> type) {
+            if (!Component.class.isAssignableFrom(type) || type == Component.class) {
+                throw new IllegalArgumentException("Not a component subclass: " + type.getName());
+            }
+            // 自身 + 所有父类（不含 Component 本身）的 id，使按父类查找仍与 isInstance 语义一致
+            List<Integer> ids = new ArrayList<>();
+            Class<?> parent = type.getSuperclass();
+            if (parent != null && parent != Component.class) {
+                for (int id : REGISTRY.get(parent).assignableIds) ids.add(id);
+            }
+            int id;
+            synchronized (LOCK) {
+                id = nextId++;
+            }
+            int[] assignable = new int[ids.size() + 1];
+            assignable[0] = id;
+            for (int i = 0; i < ids.size(); i++) assignable[i + 1] = ids.get(i);
+            return new ComponentType<>(type, id, assignable);
+        }
+    };
+
+    private final Class<?> type;
+    private final int id;
+    // 本类型的实例可以填入的槽位（自身在前，随后依次为父类）
+    private final int[] assignableIds;
+
+    private ComponentType(Class<?> type, int id, int[] assignableIds) {
+        this.type = type;
+        this.id = id;
+        this.assignableIds = assignableIds;
+    }
+
+    /**
+     * 获取（必要时注册）组件类型
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Component<T>> ComponentType<T> of(Class<T> type) {
+        return (ComponentType<T>) REGISTRY.get(type);
+    }
+
+    /**
+     * 按任意组件类获取类型（用于组件实例的具体类，可能是匿名子类）
+     */
+    static ComponentType<?> ofClass(Class<?> type) {
+        return REGISTRY.get(type);
+    }
+
+    /**
+     * 当前已注册的类型数量（即 id 上界）
+     */
+    public static int count() {
+        synchronized (LOCK) {
+            return nextId;
+        }
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    @SuppressWarnings("unchecked")
+    public Class<T> getType() {
+        return (Class<T>) type;
+    }
+
+    int[] getAssignableIds() {
+        return assignableIds;
+    }
+
+    @Override
+    public String toString() {
+        return "ComponentType(" + type.getSimpleName() + "#" + id + ")";
+    }
+}
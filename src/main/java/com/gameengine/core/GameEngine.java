@@ -1,5 +1,7 @@
 package com.gameengine.core;
 
+import com.gameengine.components.RenderComponent;
+import com.gameengine.components.TransformComponent;
 import com.gameengine.graphics.IRenderer;
 import com.gameengine.graphics.RendererFactory;
 import com.gameengine.recording.RecordingConfig;
@@ -21,17 +23,36 @@ public class GameEngine {
     private float deltaTime;
     private long lastTime;
     private String title;
+    // 固定步长模式：tickRate > 0 时以 1/tickRate 秒为单位推进模拟，渲染按 alpha 在前后两次状态间插值
+    private float tickRate;
+    private int maxSubsteps;
+    private double accumulator;
+    private float interpolationAlpha = 1.0f;
+    private int ticksLastFrame;
+    private long tickCount;
+    private long droppedTicks;
+    private long nextFrameTime;
     
     
     public GameEngine(int width, int height, String title) {
+        this(title, RendererFactory.createRenderer(width, height, title));
+    }
+
+    /**
+     * 使用指定的渲染器（例如 HeadlessRenderer）创建引擎
+     */
+    public GameEngine(String title, IRenderer renderer) {
     this.title = title;
-    this.renderer = RendererFactory.createRenderer(width, height, title);
+    this.renderer = renderer;
     this.recordingService = new RecordingService(new RecordingConfig());
         this.inputManager = InputManager.getInstance();
         this.running = false;
         this.targetFPS = 60.0f;
         this.deltaTime = 0.0f;
         this.lastTime = System.nanoTime();
+        // GAME_TICK_RATE=60 启用固定步长（默认 0：沿用可变 deltaTime）
+        this.tickRate = Math.max(0f, envFloat("GAME_TICK_RATE", 0f));
+        this.maxSubsteps = Math.max(1, (int) envFloat("GAME_MAX_SUBSTEPS", 5f));
     }
     
     /**
@@ -59,12 +80,17 @@ public class GameEngine {
         }
         
         // 使用独立循环（与 j05 保持一致），避免在 EDT 上运行整个游戏循环（兼容 GPU 后端）
+        lastTime = System.nanoTime();
+        nextFrameTime = lastTime;
         while (running) {
             // Per-frame input lifecycle:
             // 1) clear previous-frame "just pressed" (update())
             // 2) poll events which will call callbacks and add new just-pressed entries
             // 3) run game update() which can query isKeyJustPressed for this frame
-            inputManager.update();
+            // 固定步长模式下改为在每个 tick 之后清除，避免没有 tick 的帧吞掉按键
+            if (!isFixedTimestep()) {
+                inputManager.update();
+            }
 
             renderer.pollEvents();
 
@@ -73,18 +99,89 @@ public class GameEngine {
                 break;
             }
 
-            update();
+            if (isFixedTimestep()) {
+                updateFixed();
+            } else {
+                update();
+            }
             if (running) {
                 render();
             }
 
-            try { Thread.sleep(1); } catch (InterruptedException ignored) {}
+            if (isFixedTimestep()) {
+                waitForNextFrame();
+            } else {
+                try { Thread.sleep(1); } catch (InterruptedException ignored) {}
+            }
         }
 
         // 游戏循环结束时确保录制完整落盘
         stopRecording();
     }
     
+    /**
+     * 无窗口运行：以固定 dt = 1/tickRate 推进场景，不依赖窗口事件。
+     * @param tickRate 每秒模拟次数（<= 0 时取 60）
+     * @param maxTicks 最多运行的 tick 数（<= 0 表示直到 stop() 或渲染器请求关闭）
+     * @param paced true 时按真实时间节拍运行，false 时尽可能快地运行
+     * @return 实际运行的 tick 数
+     */
+    public long runHeadless(float tickRate, long maxTicks, boolean paced) {
+        if (!initialize()) {
+            System.err.println("游戏引擎初始化失败");
+            return 0;
+        }
+        final float dt = 1.0f / (tickRate > 0 ? tickRate : 60.0f);
+        final long tickNanos = (long) (dt * 1_000_000_000.0);
+        System.out.println("[GameEngine] runHeadless() starting, dt=" + dt + (paced ? " (paced)" : " (unpaced)"));
+
+        running = true;
+        if (currentScene != null) {
+            currentScene.initialize();
+        }
+        RenderComponent.setInterpolationAlpha(1.0f);
+        deltaTime = dt;
+
+        long ticks = 0;
+        long start = System.nanoTime();
+        long next = start;
+        while (running && (maxTicks <= 0 || ticks < maxTicks)) {
+            renderer.pollEvents();
+            if (renderer.shouldClose()) break;
+
+            step(dt);
+            inputManager.update();
+            // 仍然调用渲染路径，使场景的 render 开销计入统计（HeadlessRenderer 只计数）
+            render();
+            ticks++;
+            tickCount++;
+
+            if (paced) {
+                next += tickNanos;
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    try {
+                        Thread.sleep(wait / 1_000_000L, (int) (wait % 1_000_000L));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                } else if (-wait > tickNanos * maxSubsteps) {
+                    // 落后太多时不追赶
+                    next = System.nanoTime();
+                }
+            }
+        }
+        running = false;
+        long elapsed = System.nanoTime() - start;
+        double secs = elapsed / 1_000_000_000.0;
+        System.out.println(String.format("[GameEngine] headless: ticks=%d wall=%.3fs tps=%.1f avgTick=%.3fms",
+            ticks, secs, secs > 0 ? ticks / secs : 0.0, ticks > 0 ? elapsed / 1_000_000.0 / ticks : 0.0));
+
+        stopRecording();
+        return ticks;
+    }
+    
     /**
      * 更新游戏逻辑
      */
@@ -94,18 +191,94 @@ public class GameEngine {
         deltaTime = (currentTime - lastTime) / 1_000_000_000.0f; // 转换为秒
         lastTime = currentTime;
         
+        step(deltaTime);
+        checkExit();
+    }
+
+    /**
+     * 固定步长更新：累积真实时间，按 1/tickRate 推进若干次模拟，
+     * 单帧最多 maxSubsteps 次，超出部分直接丢弃以免越追越慢
+     */
+    private void updateFixed() {
+        long currentTime = System.nanoTime();
+        double frameTime = (currentTime - lastTime) / 1_000_000_000.0;
+        lastTime = currentTime;
+        accumulator += frameTime;
+
+        final float dt = 1.0f / tickRate;
+        deltaTime = dt;
+        int steps = 0;
+        while (accumulator >= dt && steps < maxSubsteps && running) {
+            snapshotTransforms();
+            step(dt);
+            inputManager.update();
+            accumulator -= dt;
+            steps++;
+            tickCount++;
+            checkExit();
+        }
+        if (accumulator >= dt) {
+            long behind = (long) (accumulator / dt);
+            droppedTicks += behind;
+            accumulator -= behind * (double) dt;
+        }
+        ticksLastFrame = steps;
+        interpolationAlpha = (float) Math.min(1.0, accumulator / dt);
+    }
+
+    /**
+     * 推进一次场景与录制
+     */
+    private void step(float dt) {
         // 更新场景
         if (currentScene != null) {
-            currentScene.update(deltaTime);
+            currentScene.update(dt);
         }
 
         // RecordingService update (记录输入与周期关键帧)
         try {
             if (recordingService != null) {
-                recordingService.update(deltaTime, currentScene, inputManager);
+                recordingService.update(dt, currentScene, inputManager);
             }
         } catch (Exception ignored) {}
-        
+    }
+
+    /**
+     * 记录每个变换在本次 tick 之前的位置，作为插值起点
+     */
+    private void snapshotTransforms() {
+        if (currentScene == null) return;
+        for (TransformComponent t : currentScene.query(TransformComponent.TYPE).getComponents(TransformComponent.TYPE)) {
+            t.savePrevious();
+        }
+    }
+
+    /**
+     * 固定步长模式下按 targetFPS 限制渲染帧率
+     */
+    private void waitForNextFrame() {
+        if (targetFPS <= 0) {
+            Thread.yield();
+            return;
+        }
+        long frameNanos = (long) (1_000_000_000L / targetFPS);
+        nextFrameTime += frameNanos;
+        long now = System.nanoTime();
+        long wait = nextFrameTime - now;
+        if (wait <= 0) {
+            // 已落后一帧以上时不追帧，从当前时间重新计时
+            if (-wait > frameNanos) nextFrameTime = now;
+            return;
+        }
+        try {
+            Thread.sleep(wait / 1_000_000L, (int) (wait % 1_000_000L));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private void checkExit() {
         // 检查退出条件（ESC键）
         if (inputManager.isKeyPressed(27)) { // ESC键
             running = false;
@@ -122,6 +295,7 @@ public class GameEngine {
      * 渲染游戏
      */
     private void render() {
+        RenderComponent.setInterpolationAlpha(isFixedTimestep() ? interpolationAlpha : 1.0f);
         renderer.beginFrame();
         // 渲染场景
         if (currentScene != null) {
@@ -235,6 +409,64 @@ public class GameEngine {
         return targetFPS;
     }
     
+    /**
+     * 启用固定步长模拟
+     * @param tickRate 每秒模拟次数（<= 0 时恢复可变 deltaTime）
+     * @param maxSubsteps 单帧最多追赶的 tick 数
+     */
+    public void setFixedTimestep(float tickRate, int maxSubsteps) {
+        this.tickRate = Math.max(0f, tickRate);
+        this.maxSubsteps = Math.max(1, maxSubsteps);
+        this.accumulator = 0;
+    }
+
+    public boolean isFixedTimestep() {
+        return tickRate > 0;
+    }
+
+    public float getTickRate() {
+        return tickRate;
+    }
+
+    public int getMaxSubsteps() {
+        return maxSubsteps;
+    }
+
+    /**
+     * 当前渲染插值系数（0..1，可变步长模式下恒为 1）
+     */
+    public float getInterpolationAlpha() {
+        return isFixedTimestep() ? interpolationAlpha : 1.0f;
+    }
+
+    /**
+     * 上一帧执行的模拟 tick 数
+     */
+    public int getTicksLastFrame() {
+        return ticksLastFrame;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * 因超过 maxSubsteps 而丢弃的 tick 数
+     */
+    public long getDroppedTicks() {
+        return droppedTicks;
+    }
+
+    private static float envFloat(String name, float def) {
+        String v = System.getenv(name);
+        if (v == null || v.isEmpty()) return def;
+        try {
+            return Float.parseFloat(v.trim());
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
+
     /**
      * 检查引擎是否正在运行
      */
@@ -1,26 +1,26 @@
 package com.gameengine.core;
 
+import com.gameengine.components.BodyStorage;
 import com.gameengine.components.TransformComponent;
 import com.gameengine.components.PhysicsComponent;
 import com.gameengine.components.HealthComponent;
 import com.gameengine.components.ProjectileComponent;
 import com.gameengine.components.RenderComponent;
+import com.gameengine.components.ShooterComponent;
 import com.gameengine.graphics.IRenderer;
 import com.gameengine.core.GameObject;
 import com.gameengine.input.InputManager;
 import com.gameengine.math.Vector2;
 import com.gameengine.scene.Scene;
+import com.gameengine.scene.SceneQuery;
 
 import java.util.List;
-import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Set;
 import java.util.Queue;
-import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -30,10 +30,16 @@ public class GameLogic {
     private Scene scene;
     private InputManager inputManager;
     private IRenderer renderer;
-    // 并行控制（线程池与开关）
-    private ExecutorService executor = null;
+    // 并行控制（ForkJoin 线程池与开关）
+    private ForkJoinPool executor = null;
     private boolean parallelEnabled = false;
     private int parallelThreads = 0;
+    // 各数据并行阶段的阈值/粒度调优器（未启用并行时为空）
+    private ParallelTuner shootTuner;
+    private ParallelTuner physicsTuner;
+    private ParallelTuner contactTuner;
+    private ParallelTuner collisionTuner;
+    private List<ParallelTuner> tuners = Collections.emptyList();
     // 采样与日志
     private int frameCounter = 0;
     private int sampleInterval = 200; // 每隔 N 帧打印一次采样信息
@@ -53,9 +59,57 @@ public class GameLogic {
         public final int damage;
         public CollisionAction(GameObject p, GameObject t, int d) { projectile = p; target = t; damage = d; }
     }
+    // 射击阶段的子弹请求（compute 阶段生产，apply 阶段主线程消费）
+    private static class ProjectileRequest {
+        final Vector2 pos;
+        final Vector2 vel;
+        final int damage;
+        final GameObject owner;
+        final ShooterComponent shooterRef;
+        ProjectileRequest(Vector2 p, Vector2 v, int d, GameObject o, ShooterComponent s) {
+            pos = p; vel = v; damage = d; owner = o; shooterRef = s;
+        }
+    }
+    // 阶段调度使用的非组件资源标记
+    private static final Object RES_INPUT = "input";
+    private static final Object RES_SPAWN = "spawn";
+    private static final Object RES_LIFECYCLE = "lifecycle";
+    // 投射物碰撞粗检测：空间哈希 + 目标位置快照（下标与 targetQuery 视图对齐）
+    private final SpatialHash collisionGrid = new SpatialHash(32f);
+    private float[] targetXs = new float[0];
+    private float[] targetYs = new float[0];
+    
+    // 每帧复用的临时向量（仅主线程使用）
+    private final Vector2 inputScratch = new Vector2();
+    // 可选的稠密存储（启用后边界反弹直接在数组上批量执行）
+    private BodyStorage bodyStorage;
+    // 投射物对象池（GAME_PROJECTILE_POOL=0 时禁用）
+    private ProjectilePool projectilePool;
+    // 缓存的场景查询视图（随场景增量更新）
+    private final SceneQuery projectileQuery;
+    private final SceneQuery targetQuery;
+    private final SceneQuery transformQuery;
+    private final SceneQuery shooterQuery;
+    private final SceneQuery obstacleQuery;
+    // 帧内阶段调度：各阶段拆分为 compute（只读）与 apply（主线程写入），互不冲突的阶段并发 compute
+    private final PhaseScheduler scheduler;
+    private float frameDelta;
+    // compute -> apply 之间传递的待应用结果
+    private boolean pendingMove;
+    private float pendingMoveX, pendingMoveY;
+    private ProjectileRequest pendingPlayerShot;
+    private final Queue<ProjectileRequest> shootRequests = new ConcurrentLinkedQueue<>();
+    private final Queue<CollisionAction> collisionActions = new ConcurrentLinkedQueue<>();
+    private final Set<GameObject> usedProjectiles = Collections.newSetFromMap(new IdentityHashMap<>());
+    private GameObject contactPlayer;
     
     public GameLogic(Scene scene, IRenderer renderer) {
         this.scene = scene;
+        this.projectileQuery = scene.query(ProjectileComponent.TYPE);
+        this.targetQuery = scene.query(HealthComponent.TYPE, TransformComponent.TYPE);
+        this.transformQuery = scene.query(TransformComponent.TYPE);
+        this.shooterQuery = scene.query(ShooterComponent.TYPE);
+        this.obstacleQuery = scene.query(RenderComponent.TYPE, TransformComponent.TYPE);
         this.inputManager = InputManager.getInstance();
         this.renderer = renderer;
     // 读取环境变量以决定是否启用并行执行
@@ -69,15 +123,74 @@ public class GameLogic {
                     try { parallelThreads = Integer.parseInt(t); } catch (NumberFormatException ignored) {}
                     parallelThreads = Math.max(1, parallelThreads);
                 }
-                executor = Executors.newFixedThreadPool(parallelThreads);
-                System.out.println("[GameLogic] Parallel enabled: threads=" + parallelThreads);
+                executor = new ForkJoinPool(parallelThreads);
+                // 阈值与粒度默认在运行时自动调整（GAME_PARALLEL_AUTOTUNE=0 时固定为初始值）
+                String tune = System.getenv("GAME_PARALLEL_AUTOTUNE");
+                boolean adaptive = tune == null || !(tune.equalsIgnoreCase("false") || tune.equals("0"));
+                shootTuner = new ParallelTuner("shooting", parallelThreads, 64, 64, adaptive);
+                physicsTuner = new ParallelTuner("physics", parallelThreads, 50, 128, adaptive);
+                contactTuner = new ParallelTuner("contact", parallelThreads, 64, 64, adaptive);
+                collisionTuner = new ParallelTuner("collisions", parallelThreads, 50, 64, adaptive);
+                tuners = Collections.unmodifiableList(java.util.Arrays.asList(shootTuner, physicsTuner, contactTuner, collisionTuner));
+                System.out.println("[GameLogic] Parallel enabled: threads=" + parallelThreads + " autotune=" + adaptive);
             }
         } catch (SecurityException se) {
             parallelEnabled = false;
         }
+        // 投射物对象池大小（默认 1024，0 表示禁用）
+        int poolSize = 1024;
+        try {
+            String env = System.getenv("GAME_PROJECTILE_POOL");
+            if (env != null) {
+                try { poolSize = Math.max(0, Integer.parseInt(env)); } catch (NumberFormatException ignored) {}
+            }
+        } catch (SecurityException ignored) {}
+        if (poolSize > 0) {
+            projectilePool = new ProjectilePool(poolSize);
+            projectilePool.prewarm(Math.min(poolSize, 64));
+            scene.addListener(projectilePool);
+        }
+
+        // 阶段声明顺序即串行语义；reads 为 compute 读取的数据，writes 为 apply 写入的数据
+        this.scheduler = new PhaseScheduler(parallelEnabled ? executor : null);
+        scheduler.phase("input")
+            .reads(RES_INPUT)
+            .writes(TransformComponent.TYPE, PhysicsComponent.TYPE)
+            .compute(this::computePlayerInput)
+            .apply(this::applyPlayerInput);
+        scheduler.phase("shooting")
+            .reads(RES_INPUT, TransformComponent.TYPE, ShooterComponent.TYPE)
+            .writes(ShooterComponent.TYPE, RES_SPAWN)
+            .compute(this::computeShooting)
+            .apply(this::applyShooting);
+        // 边界反弹原地修改位置与速度，整体在 apply 中执行（内部仍可数据并行）
+        scheduler.phase("physics")
+            .reads(TransformComponent.TYPE, PhysicsComponent.TYPE)
+            .writes(TransformComponent.TYPE, PhysicsComponent.TYPE)
+            .apply(this::updatePhysics);
+        scheduler.phase("collisions")
+            .reads(TransformComponent.TYPE, ProjectileComponent.TYPE)
+            .writes(HealthComponent.TYPE, RES_LIFECYCLE)
+            .compute(this::computeCollisions)
+            .apply(this::applyCollisions);
+        // 接触检测只判断 Health 组件是否存在、不读取生命值，因此可与 collisions 同批 compute
+        scheduler.phase("obstacle")
+            .reads(TransformComponent.TYPE)
+            .writes(HealthComponent.TYPE, RES_LIFECYCLE)
+            .compute(() -> computePlayerContact(frameDelta))
+            .apply(this::applyPlayerContact);
+        scheduler.phase("spawning")
+            .writes(RES_SPAWN)
+            .apply(() -> handleSpawning(frameDelta));
+        if (parallelEnabled) {
+            System.out.println("[GameLogic] phase stages: " + scheduler);
+        }
     }
 
     public void shutdown() {
+        if (projectilePool != null) {
+            scene.removeListener(projectilePool);
+        }
         if (executor != null && !executor.isShutdown()) {
             executor.shutdown();
             try {
@@ -100,22 +213,20 @@ public class GameLogic {
         // update survival time
         survivalTime += deltaTime;
 
+        if (projectilePool != null && frameCounter > 0 && frameCounter % sampleInterval == 0) {
+            System.out.println("[ProjectilePool] " + projectilePool);
+        }
+        if (frameCounter > 0 && frameCounter % sampleInterval == 0) {
+            for (ParallelTuner t : tuners) System.out.println("[ParallelTuner] " + t);
+        }
+
         // decrease player shoot cooldown
         playerShootCooldown -= deltaTime;
 
-        // handle input-driven movement
-        handlePlayerInput();
-        // shooting and cooldowns
-        handleShooting();
-        // update physics components
-        updatePhysics();
-        // check projectile collisions
-        checkCollisions();
-        // check player-obstacle collision using deltaTime for cooldown
-        checkPlayerObstacleCollision(deltaTime);
-
-    // spawn enemies dynamically over time
-    handleSpawning(deltaTime);
+        // input -> shooting -> physics -> collisions -> obstacle contact -> spawning
+        // 由调度器按声明的读写集合合并为若干 stage 执行（未启用并行时逐个串行执行）
+        frameDelta = deltaTime;
+        scheduler.run();
 
         // detect player death
         List<GameObject> players = scene.findGameObjectsByComponent(HealthComponent.class);
@@ -123,7 +234,7 @@ public class GameLogic {
             gameOver = true;
         } else {
             GameObject player = players.get(0);
-            HealthComponent hc = player.getComponent(HealthComponent.class);
+            HealthComponent hc = player.getComponent(HealthComponent.TYPE);
             if (hc == null || hc.isDead()) {
                 gameOver = true;
             }
@@ -174,16 +285,15 @@ public class GameLogic {
      * 处理玩家输入
      */
     public void handlePlayerInput() {
-        List<GameObject> players = scene.findGameObjectsByComponent(TransformComponent.class);
-        if (players.isEmpty()) return;
-        
-        GameObject player = players.get(0);
-        TransformComponent transform = player.getComponent(TransformComponent.class);
-        PhysicsComponent physics = player.getComponent(PhysicsComponent.class);
-        
-        if (transform == null || physics == null) return;
-        
-        Vector2 movement = new Vector2();
+        computePlayerInput();
+        applyPlayerInput();
+    }
+
+    /**
+     * 输入阶段 compute：根据按键计算移动速度
+     */
+    private void computePlayerInput() {
+        Vector2 movement = inputScratch.set(0, 0);
         
         if (inputManager.isKeyPressed(87) || inputManager.isKeyPressed(38)) { // W或上箭头
             movement.y -= 1;
@@ -198,108 +308,138 @@ public class GameLogic {
             movement.x += 1;
         }
         
-        if (movement.magnitude() > 0) {
-            movement = movement.normalize().multiply(200);
-            physics.setVelocity(movement);
+        pendingMove = movement.magnitude() > 0;
+        if (pendingMove) {
+            movement.normalizeLocal().scaleLocal(200);
+            pendingMoveX = movement.x;
+            pendingMoveY = movement.y;
+        }
+    }
+
+    /**
+     * 输入阶段 apply：设置玩家速度并做边界检查
+     */
+    private void applyPlayerInput() {
+        List<GameObject> players = transformQuery.getObjects();
+        if (players.isEmpty()) return;
+        
+        GameObject player = players.get(0);
+        TransformComponent transform = player.getComponent(TransformComponent.TYPE);
+        PhysicsComponent physics = player.getComponent(PhysicsComponent.TYPE);
+        
+        if (transform == null || physics == null) return;
+        
+        if (pendingMove) {
+            physics.setVelocity(pendingMoveX, pendingMoveY);
         }
         
         // 边界检查
-        Vector2 pos = transform.getPosition();
-        if (pos.x < 0) pos.x = 0;
-        if (pos.y < 0) pos.y = 0;
-        if (pos.x > 800 - 20) pos.x = 800 - 20;
-        if (pos.y > 600 - 20) pos.y = 600 - 20;
-        transform.setPosition(pos);
+        float px = transform.getX();
+        float py = transform.getY();
+        if (px < 0) px = 0;
+        if (py < 0) py = 0;
+        if (px > 800 - 20) px = 800 - 20;
+        if (py > 600 - 20) py = 600 - 20;
+        transform.setPosition(px, py);
     }
 
     /**
      * 玩家射击：由鼠标控制方向（左键）
      */
     public void handleShooting() {
+        computeShooting();
+        applyShooting();
+    }
+
+    /**
+     * 射击阶段 compute（只读）：决定玩家与哪些敌人发射及子弹参数
+     */
+    private void computeShooting() {
         // 已并行化：handleShooting（敌人射击）
         // - 计算阶段（可并行）：决定哪些敌人发射及子弹参数
         // - 应用阶段（主线程）：调用 spawnProjectile(...) 和 resetCooldown()
-        List<GameObject> players = scene.findGameObjectsByComponent(TransformComponent.class);
+        pendingPlayerShot = null;
+        shootRequests.clear();
+        List<GameObject> players = transformQuery.getObjects();
         if (players.isEmpty()) return;
         GameObject player = players.get(0);
-        TransformComponent pTrans = player.getComponent(TransformComponent.class);
+        TransformComponent pTrans = player.getComponent(TransformComponent.TYPE);
         if (pTrans == null) return;
 
         // 玩家持续射击（由 playerShootCooldown 控制）
-        playerShootCooldown -= 0; // 由外部 deltaTime 控制
         if ((inputManager.isMouseButtonPressed(1) || inputManager.isMouseButtonPressed(0))) {
             if (playerShootCooldown <= 0f) {
                 Vector2 mouse = inputManager.getMousePosition();
-                Vector2 dir = new Vector2(mouse.x - pTrans.getPosition().x, mouse.y - pTrans.getPosition().y).normalize();
-                spawnProjectile(pTrans.getPosition().add(new Vector2(8, 0)), dir.multiply(400), 1, player, true);
-                playerShootCooldown = 0.12f;
+                Vector2 dir = new Vector2(mouse.x - pTrans.getX(), mouse.y - pTrans.getY()).normalizeLocal();
+                pendingPlayerShot = new ProjectileRequest(new Vector2(pTrans.getX() + 8, pTrans.getY()), dir.scaleLocal(400), 1, player, null);
             }
         }
 
         // 敌人独立射击：遍历具有 ShooterComponent 的对象
-        List<com.gameengine.components.ShooterComponent> shooters = scene.getComponents(com.gameengine.components.ShooterComponent.class);
+        List<ShooterComponent> shooters = shooterQuery.getComponents(ShooterComponent.TYPE);
         if (shooters.isEmpty()) return;
 
         // 如果启用了并行且射手数量较多：
         // - 并行计算（compute）：判断每个射手是否发射，并生成子弹请求（只读操作）
         // - 主线程应用（apply）：统一在主线程调用 spawnProjectile(...) 与 resetCooldown()，避免并发修改场景
-        class ProjectileRequest {
-            final Vector2 pos;
-            final Vector2 vel;
-            final int damage;
-            final GameObject owner;
-            final com.gameengine.components.ShooterComponent shooterRef;
-            ProjectileRequest(Vector2 p, Vector2 v, int d, GameObject o, com.gameengine.components.ShooterComponent s) {
-                pos = p; vel = v; damage = d; owner = o; shooterRef = s;
-            }
+        final float playerX = pTrans.getX();
+        final float playerY = pTrans.getY();
+        final Queue<ProjectileRequest> requests = shootRequests;
+
+        final int n = shooters.size();
+        if (!canFanOut()) {
+            collectShotRequests(shooters, 0, n, playerX, playerY, requests);
+        } else if (!shootTuner.useParallel(n)) {
+            long t0 = System.nanoTime();
+            collectShotRequests(shooters, 0, n, playerX, playerY, requests);
+            shootTuner.recordSerial(n, System.nanoTime() - t0);
+        } else {
+            long t0 = System.nanoTime();
+            RangeTask.run(executor, n, shootTuner.grainFor(n),
+                (start, end) -> collectShotRequests(shooters, start, end, playerX, playerY, requests));
+            shootTuner.recordParallel(n, System.nanoTime() - t0);
         }
+    }
 
-        Vector2 playerPosSnapshot = pTrans.getPosition();
-        Queue<ProjectileRequest> requests = new ConcurrentLinkedQueue<>();
-
-        if (!parallelEnabled || executor == null || shooters.size() < 64) {
-            for (com.gameengine.components.ShooterComponent shooter : shooters) {
-                GameObject owner = shooter.getOwner();
-                if (owner == null) continue;
-                TransformComponent eTrans = owner.getComponent(TransformComponent.class);
-                if (eTrans == null) continue;
-                if (shooter.canShoot()) {
-                    Vector2 dir = new Vector2(playerPosSnapshot.x - eTrans.getPosition().x, playerPosSnapshot.y - eTrans.getPosition().y).normalize();
-                    requests.add(new ProjectileRequest(eTrans.getPosition(), dir.multiply(shooter.getSpeed()), shooter.getDamage(), owner, shooter));
-                }
+    private static void collectShotRequests(List<ShooterComponent> shooters, int start, int end, float playerX, float playerY, Queue<ProjectileRequest> out) {
+        for (int j = start; j < end; j++) {
+            ShooterComponent shooter = shooters.get(j);
+            GameObject owner = shooter.getOwner();
+            if (owner == null) continue;
+            TransformComponent eTrans = owner.getComponent(TransformComponent.TYPE);
+            if (eTrans == null) continue;
+            if (shooter.canShoot()) {
+                Vector2 dir = new Vector2(playerX - eTrans.getX(), playerY - eTrans.getY()).normalizeLocal();
+                out.add(new ProjectileRequest(eTrans.getPosition(), dir.scaleLocal(shooter.getSpeed()), shooter.getDamage(), owner, shooter));
             }
-        } else {
-            int threadCount = parallelThreads > 0 ? parallelThreads : Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
-            int batchSize = Math.max(64, shooters.size() / (threadCount * 4));
-            List<Future<?>> futs = new ArrayList<>();
-            for (int i = 0; i < shooters.size(); i += batchSize) {
-                final int start = i;
-                final int end = Math.min(i + batchSize, shooters.size());
-                futs.add(executor.submit(() -> {
-                    for (int j = start; j < end; j++) {
-                        com.gameengine.components.ShooterComponent shooter = shooters.get(j);
-                        GameObject owner = shooter.getOwner();
-                        if (owner == null) continue;
-                        TransformComponent eTrans = owner.getComponent(TransformComponent.class);
-                        if (eTrans == null) continue;
-                        if (shooter.canShoot()) {
-                            Vector2 dir = new Vector2(playerPosSnapshot.x - eTrans.getPosition().x, playerPosSnapshot.y - eTrans.getPosition().y).normalize();
-                            requests.add(new ProjectileRequest(eTrans.getPosition(), dir.multiply(shooter.getSpeed()), shooter.getDamage(), owner, shooter));
-                        }
-                    }
-                    return null;
-                }));
-            }
-            for (Future<?> f : futs) { try { f.get(); } catch (Exception ignored) {} }
         }
+    }
 
+    /**
+     * 射击阶段 apply：生成子弹并重置冷却
+     */
+    private void applyShooting() {
+        if (pendingPlayerShot != null) {
+            ProjectileRequest r = pendingPlayerShot;
+            pendingPlayerShot = null;
+            spawnProjectile(r.pos, r.vel, r.damage, r.owner, true);
+            playerShootCooldown = 0.12f;
+        }
         // Apply projectile spawns and reset shooter cooldowns on main thread
         // （应用阶段 - 单线程执行以避免场景并发修改）
-        for (ProjectileRequest r : requests) {
+        ProjectileRequest r;
+        while ((r = shootRequests.poll()) != null) {
             spawnProjectile(r.pos, r.vel, r.damage, r.owner, false);
             if (r.shooterRef != null) r.shooterRef.resetCooldown();
         }
     }
+
+    /**
+     * 是否启用数据并行（ForkJoin 任务在工作线程内嵌套 join 不会阻塞，阶段 compute 内同样可用）
+     */
+    private boolean canFanOut() {
+        return parallelEnabled && executor != null;
+    }
     
     /**
      * 更新物理系统
@@ -310,349 +450,325 @@ public class GameLogic {
         // - 并行分支在 moving 列表上计算边界反射与位置修正
         frameCounter++;
         List<PhysicsComponent> physicsComponents = scene.getComponents(PhysicsComponent.class);
-        if (!parallelEnabled || executor == null || physicsComponents.size() < 50) {
-            // 串行回退（小规模负载使用），避免并行调度开销超过收益
+        if (bodyStorage != null) {
+            // 稠密存储路径：对位置/速度数组做一次紧凑循环（场景中的 Transform/Physics 均已绑定）
             long t0 = System.nanoTime();
-            for (PhysicsComponent physics : physicsComponents) {
-                // 边界反弹
-                GameObject owner = physics.getOwner();
-                if (owner == null) continue;
-                TransformComponent transform = owner.getComponent(TransformComponent.class);
-                if (transform != null) {
-                    Vector2 pos = transform.getPosition();
-                    Vector2 velocity = physics.getVelocity();
-
-                    if (pos.x <= 0 || pos.x >= 800 - 15) {
-                        velocity.x = -velocity.x;
-                        physics.setVelocity(velocity);
-                    }
-                    if (pos.y <= 0 || pos.y >= 600 - 15) {
-                        velocity.y = -velocity.y;
-                        physics.setVelocity(velocity);
-                    }
-
-                    // 确保在边界内
-                    if (pos.x < 0) pos.x = 0;
-                    if (pos.y < 0) pos.y = 0;
-                    if (pos.x > 800 - 15) pos.x = 800 - 15;
-                    if (pos.y > 600 - 15) pos.y = 600 - 15;
-                    transform.setPosition(pos);
-                }
-            }
+            bodyStorage.bounce(0, 0, 800 - 15, 600 - 15);
             long t1 = System.nanoTime();
-            // sample print to avoid per-frame IO overhead
             if (physicsComponents.size() > 0 && (frameCounter % sampleInterval == 0)) {
-                System.out.println(String.format("[updatePhysics] serial ms=%.3f, components=%d", (t1 - t0) / 1_000_000.0, physicsComponents.size()));
+                System.out.println(String.format("[updatePhysics] dense ms=%.3f, components=%d", (t1 - t0) / 1_000_000.0, physicsComponents.size()));
             }
             return;
         }
-
-    // 并行分支（对移动列表分批处理）
-    long t0 = System.nanoTime();
-        int threadCount = parallelThreads > 0 ? parallelThreads : Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
-        int batchSize = Math.max(128, physicsComponents.size() / (threadCount * 4));
-        batchSize = Math.min(Math.max(1, batchSize), physicsComponents.size());
-        List<Future<?>> futs = new ArrayList<>();
-        for (int i = 0; i < physicsComponents.size(); i += batchSize) {
-            final int start = i;
-            final int end = Math.min(i + batchSize, physicsComponents.size());
-            futs.add(executor.submit(() -> {
-                for (int j = start; j < end; j++) {
-                    PhysicsComponent physics = physicsComponents.get(j);
-                    GameObject owner = physics.getOwner();
-                    if (owner == null) continue;
-                    TransformComponent transform = owner.getComponent(TransformComponent.class);
-                    if (transform != null) {
-                        Vector2 pos = transform.getPosition();
-                        Vector2 velocity = physics.getVelocity();
-
-                        if (pos.x <= 0 || pos.x >= 800 - 15) {
-                            velocity.x = -velocity.x;
-                            physics.setVelocity(velocity);
-                        }
-                        if (pos.y <= 0 || pos.y >= 600 - 15) {
-                            velocity.y = -velocity.y;
-                            physics.setVelocity(velocity);
-                        }
-
-                        if (pos.x < 0) pos.x = 0;
-                        if (pos.y < 0) pos.y = 0;
-                        if (pos.x > 800 - 15) pos.x = 800 - 15;
-                        if (pos.y > 600 - 15) pos.y = 600 - 15;
-                        transform.setPosition(pos);
-                    }
-                }
-                return null;
-            }));
+        final int n = physicsComponents.size();
+        if (!canFanOut() || !physicsTuner.useParallel(n)) {
+            // 串行回退（小规模负载使用），避免并行调度开销超过收益
+            long t0 = System.nanoTime();
+            applyBoundsRange(physicsComponents, 0, n);
+            long t1 = System.nanoTime();
+            if (canFanOut()) physicsTuner.recordSerial(n, t1 - t0);
+            // sample print to avoid per-frame IO overhead
+            if (n > 0 && (frameCounter % sampleInterval == 0)) {
+                System.out.println(String.format("[updatePhysics] serial ms=%.3f, components=%d", (t1 - t0) / 1_000_000.0, n));
+            }
+            return;
         }
 
+        // 并行分支（递归二分，叶子粒度由调优器给出）
+        long t0 = System.nanoTime();
+        int grain = physicsTuner.grainFor(n);
         try {
-            for (Future<?> f : futs) { try { f.get(); } catch (Exception ignored) {} }
-        } catch (Exception e) {
+            RangeTask.run(executor, n, grain, (start, end) -> applyBoundsRange(physicsComponents, start, end));
+        } catch (RuntimeException e) {
             System.out.println("[updatePhysics] parallel failed, falling back to serial: " + e);
-            // 并行失败，回退到串行处理
-            for (PhysicsComponent physics : physicsComponents) {
-                GameObject owner = physics.getOwner();
-                if (owner == null) continue;
-                TransformComponent transform = owner.getComponent(TransformComponent.class);
-                if (transform != null) {
-                    Vector2 pos = transform.getPosition();
-                    Vector2 velocity = physics.getVelocity();
-
-                    if (pos.x <= 0 || pos.x >= 800 - 15) {
-                        velocity.x = -velocity.x;
-                        physics.setVelocity(velocity);
-                    }
-                    if (pos.y <= 0 || pos.y >= 600 - 15) {
-                        velocity.y = -velocity.y;
-                        physics.setVelocity(velocity);
-                    }
+            // 并行失败，回退到串行处理（边界修正是幂等的，重复处理不改变结果）
+            applyBoundsRange(physicsComponents, 0, n);
+        }
 
-                    if (pos.x < 0) pos.x = 0;
-                    if (pos.y < 0) pos.y = 0;
-                    if (pos.x > 800 - 15) pos.x = 800 - 15;
-                    if (pos.y > 600 - 15) pos.y = 600 - 15;
-                    transform.setPosition(pos);
-                }
+        long t1 = System.nanoTime();
+        physicsTuner.recordParallel(n, t1 - t0);
+        if (n > 0 && (frameCounter % sampleInterval == 0)) {
+            System.out.println(String.format("[updatePhysics] parallel ms=%.3f, components=%d, threads=%d, grain=%d", (t1 - t0) / 1_000_000.0, n, parallelThreads, grain));
+        }
+    }
+
+    private static void applyBoundsRange(List<PhysicsComponent> physicsComponents, int start, int end) {
+        for (int j = start; j < end; j++) {
+            PhysicsComponent physics = physicsComponents.get(j);
+            // 边界反弹
+            GameObject owner = physics.getOwner();
+            if (owner == null) continue;
+            TransformComponent transform = owner.getComponent(TransformComponent.TYPE);
+            if (transform != null) {
+                applyBounds(physics, transform);
             }
         }
+    }
 
-        long t1 = System.nanoTime();
-        if (physicsComponents.size() > 0 && (frameCounter % sampleInterval == 0)) {
-            System.out.println(String.format("[updatePhysics] parallel ms=%.3f, components=%d, threads=%d", (t1 - t0) / 1_000_000.0, physicsComponents.size(), threadCount));
+    /**
+     * 边界反弹与位置修正（串行、并行与回退路径共用）
+     */
+    private static void applyBounds(PhysicsComponent physics, TransformComponent transform) {
+        float x = transform.getX();
+        float y = transform.getY();
+
+        if (x <= 0 || x >= 800 - 15) {
+            physics.setVelocity(-physics.getVelocityX(), physics.getVelocityY());
         }
+        if (y <= 0 || y >= 600 - 15) {
+            physics.setVelocity(physics.getVelocityX(), -physics.getVelocityY());
+        }
+
+        // 确保在边界内
+        if (x < 0) x = 0;
+        if (y < 0) y = 0;
+        if (x > 800 - 15) x = 800 - 15;
+        if (y > 600 - 15) y = 600 - 15;
+        transform.setPosition(x, y);
     }
 
     /**
      * 玩家与障碍接触检测（近战碰撞造成伤害）
      */
     public void checkPlayerObstacleCollision(float deltaTime) {
+        computePlayerContact(deltaTime);
+        applyPlayerContact();
+    }
+
+    /**
+     * 接触检测 compute（只读）：判断玩家本帧是否接触到敌人或障碍
+     */
+    private void computePlayerContact(float deltaTime) {
         // 已并行化：checkPlayerObstacleCollision（玩家与敌人接触检测）
         // - 检测阶段在敌人较多时并行运行；应用（伤害 + 冷却）在主线程串行执行
+        contactPlayer = null;
         // cooldown decrement
         playerHitCooldown -= deltaTime;
 
-        List<GameObject> players = scene.findGameObjectsByComponent(TransformComponent.class);
+        List<GameObject> players = transformQuery.getObjects();
         if (players.isEmpty()) return;
         GameObject player = players.get(0);
-        TransformComponent pTrans = player.getComponent(TransformComponent.class);
-        HealthComponent pHealth = player.getComponent(HealthComponent.class);
+        TransformComponent pTrans = player.getComponent(TransformComponent.TYPE);
+        HealthComponent pHealth = player.getComponent(HealthComponent.TYPE);
         if (pTrans == null || pHealth == null) return;
         // If player is currently invulnerable, skip detection to save work
         if (playerHitCooldown > 0f) return;
 
-        // Separate scene objects into enemies (have HealthComponent) and obstacles (render only)
-        List<GameObject> enemies = new ArrayList<>();
-        List<GameObject> obstacles = new ArrayList<>();
-        for (GameObject obj : scene.getGameObjects()) {
-            if (obj == player) continue;
-            if (obj.getComponent(HealthComponent.class) != null) {
-                enemies.add(obj);
-            } else if (obj.getComponent(RenderComponent.class) != null) {
-                obstacles.add(obj);
-            }
-        }
+        // 敌人：Health + Transform 查询视图（跳过玩家自身）；障碍：Render + Transform 中没有 Health 的对象
+        final List<GameObject> enemies = targetQuery.getObjects();
+        final List<TransformComponent> enemyTransforms = targetQuery.getComponents(TransformComponent.TYPE);
 
-        Vector2 playerPos = pTrans.getPosition();
+        final float playerX = pTrans.getX();
+        final float playerY = pTrans.getY();
 
         // First, check collisions with enemies (parallelizable when many enemies)
         GameObject hitEnemy = null;
         if (!enemies.isEmpty()) {
-            if (!parallelEnabled || executor == null || enemies.size() < 64) {
-                for (GameObject enemy : enemies) {
-                    TransformComponent eTrans = enemy.getComponent(TransformComponent.class);
-                    if (eTrans == null) continue;
-                    if (playerPos.distance(eTrans.getPosition()) < 16) {
+            final int n = enemies.size();
+            if (!canFanOut() || !contactTuner.useParallel(n)) {
+                long t0 = System.nanoTime();
+                for (int j = 0; j < n; j++) {
+                    GameObject enemy = enemies.get(j);
+                    if (enemy == player) continue;
+                    TransformComponent eTrans = enemyTransforms.get(j);
+                    if (Vector2.distance(playerX, playerY, eTrans.getX(), eTrans.getY()) < 16) {
                         hitEnemy = enemy;
                         break;
                     }
                 }
+                // 提前命中时耗时不代表完整扫描，不计入估计
+                if (canFanOut() && hitEnemy == null) contactTuner.recordSerial(n, System.nanoTime() - t0);
             } else {
                 final Queue<GameObject> hits = new ConcurrentLinkedQueue<>();
-                int threadCount = parallelThreads > 0 ? parallelThreads : Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
-                int batchSize = Math.max(64, enemies.size() / (threadCount * 4));
-                List<Future<?>> futs = new ArrayList<>();
-                for (int i = 0; i < enemies.size(); i += batchSize) {
-                    final int start = i;
-                    final int end = Math.min(i + batchSize, enemies.size());
-                    futs.add(executor.submit(() -> {
-                        for (int j = start; j < end; j++) {
-                            GameObject enemy = enemies.get(j);
-                            TransformComponent eTrans = enemy.getComponent(TransformComponent.class);
-                            if (eTrans == null) continue;
-                            if (playerPos.distance(eTrans.getPosition()) < 16) {
-                                hits.add(enemy);
-                                break; // stop within this batch early
-                            }
+                long t0 = System.nanoTime();
+                RangeTask.run(executor, n, contactTuner.grainFor(n), (start, end) -> {
+                    for (int j = start; j < end; j++) {
+                        GameObject enemy = enemies.get(j);
+                        if (enemy == player) continue;
+                        TransformComponent eTrans = enemyTransforms.get(j);
+                        if (Vector2.distance(playerX, playerY, eTrans.getX(), eTrans.getY()) < 16) {
+                            hits.add(enemy);
+                            break; // stop within this batch early
                         }
-                        return null;
-                    }));
-                }
-                for (Future<?> f : futs) { try { f.get(); } catch (Exception ignored) {} }
+                    }
+                });
+                contactTuner.recordParallel(n, System.nanoTime() - t0);
                 if (!hits.isEmpty()) hitEnemy = hits.peek();
             }
         }
 
         if (hitEnemy != null) {
-            // apply single hit and set cooldown
-            pHealth.applyDamage(1);
-            playerHitCooldown = 0.5f;
-            if (pHealth.isDead()) player.destroy();
+            contactPlayer = player;
             return;
         }
 
         // If no enemy hit, fall back to obstacle checks (serial, usually small count)
-        for (GameObject obj : obstacles) {
-            TransformComponent oTrans = obj.getComponent(TransformComponent.class);
-            if (oTrans == null) continue;
-            if (playerPos.distance(oTrans.getPosition()) < 16) {
-                pHealth.applyDamage(1);
-                playerHitCooldown = 0.5f;
-                if (pHealth.isDead()) {
-                    player.destroy();
-                }
+        List<GameObject> obstacles = obstacleQuery.getObjects();
+        List<TransformComponent> obstacleTransforms = obstacleQuery.getComponents(TransformComponent.TYPE);
+        for (int j = 0; j < obstacles.size(); j++) {
+            GameObject obj = obstacles.get(j);
+            if (obj == player || obj.getComponent(HealthComponent.TYPE) != null) continue;
+            TransformComponent oTrans = obstacleTransforms.get(j);
+            if (Vector2.distance(playerX, playerY, oTrans.getX(), oTrans.getY()) < 16) {
+                contactPlayer = player;
                 break;
             }
         }
     }
+
+    /**
+     * 接触检测 apply：扣一次血并进入无敌冷却
+     */
+    private void applyPlayerContact() {
+        GameObject player = contactPlayer;
+        if (player == null) return;
+        contactPlayer = null;
+        HealthComponent pHealth = player.getComponent(HealthComponent.TYPE);
+        // apply single hit and set cooldown
+        pHealth.applyDamage(1);
+        playerHitCooldown = 0.5f;
+        if (pHealth.isDead()) {
+            player.destroy();
+        }
+    }
     
     /**
      * 检查碰撞
      */
     public void checkCollisions() {
+        computeCollisions();
+        applyCollisions();
+    }
+
+    /**
+     * 碰撞阶段 compute（只读）：检测投射物命中的目标，生成碰撞动作
+     */
+    private void computeCollisions() {
+        collisionActions.clear();
         // 直接查找玩家对象
-        List<GameObject> players = scene.findGameObjectsByComponent(TransformComponent.class);
+        List<GameObject> players = transformQuery.getObjects();
         if (players.isEmpty()) return;
         
         GameObject player = players.get(0);
-        TransformComponent playerTransform = player.getComponent(TransformComponent.class);
+        TransformComponent playerTransform = player.getComponent(TransformComponent.TYPE);
         if (playerTransform == null) return;
         
         // 检测投射物与敌人/玩家的碰撞
-        List<GameObject> allObjects = scene.getGameObjects();
-        List<GameObject> projectiles = new ArrayList<>();
-        for (GameObject obj : allObjects) {
-            if (obj.getComponent(ProjectileComponent.class) != null) projectiles.add(obj);
-        }
-
-        if (!parallelEnabled || executor == null || projectiles.size() < 50) {
-            // 串行路径（保留原始行为）
-            for (GameObject obj : allObjects) {
-                if (obj.getComponent(ProjectileComponent.class) != null) {
-                    GameObject projOwner = obj; // projectile object
-                    TransformComponent projT = obj.getComponent(TransformComponent.class);
-                    ProjectileComponent projC = obj.getComponent(ProjectileComponent.class);
-                    if (projT == null || projC == null) continue;
-
-                    // check hit enemies
-                    for (GameObject target : allObjects) {
-                        if (target == obj) continue;
-                        // avoid hitting shooter
-                        if (projC.getShooter() != null && projC.getShooter() == target) continue;
-                        HealthComponent hc = target.getComponent(HealthComponent.class);
-                        TransformComponent tTrans = target.getComponent(TransformComponent.class);
-                        if (hc != null && tTrans != null) {
-                            if (projT.getPosition().distance(tTrans.getPosition()) < 12) {
-                                hc.applyDamage(projC.getDamage());
-                                // destroy projectile
-                                obj.destroy();
-                                if (hc.isDead()) {
-                                    target.destroy();
-                                }
-                                break;
-                            }
-                        }
-                    }
-                }
-            }
+        List<GameObject> projectiles = projectileQuery.getObjects();
+        if (projectiles.isEmpty()) return;
+        // 可受伤目标（Health + Transform），视图顺序与场景对象顺序一致
+        List<GameObject> targets = targetQuery.getObjects();
+
+        // 粗检测：按本帧位置把所有目标放入空间哈希，
+        // 条目编号为其在 targets 中的下标，查询时取最小下标即与逐个遍历的“第一个命中”一致
+        buildCollisionGrid(targets);
+
+        final Queue<CollisionAction> actions = collisionActions;
+        final int n = projectiles.size();
+        if (!canFanOut() || !collisionTuner.useParallel(n)) {
+            // 串行路径：按投射物顺序收集动作，apply 时按同样顺序应用（与原逐个处理结果一致）
+            long t0 = System.nanoTime();
+            detectCollisions(projectiles, 0, n, targets, actions);
+            if (canFanOut()) collisionTuner.recordSerial(n, System.nanoTime() - t0);
             return;
         }
 
         // 并行碰撞检测：在并行的计算阶段收集碰撞动作（只读快照），随后在主线程串行应用这些动作以保持场景一致性
-        final List<GameObject> targetsSnapshot = new ArrayList<>(allObjects);
-        final Queue<CollisionAction> actions = new ConcurrentLinkedQueue<>();
-
-        int threadCount = parallelThreads > 0 ? parallelThreads : Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
-        int batchSize = Math.max(1, projectiles.size() / threadCount + 1);
-        List<Callable<Void>> tasks = new ArrayList<>();
-        for (int i = 0; i < projectiles.size(); i += batchSize) {
-            final int start = i;
-            final int end = Math.min(i + batchSize, projectiles.size());
-            tasks.add(() -> {
-                for (int j = start; j < end; j++) {
-                    GameObject proj = projectiles.get(j);
-                    TransformComponent projT = proj.getComponent(TransformComponent.class);
-                    ProjectileComponent projC = proj.getComponent(ProjectileComponent.class);
-                    if (projT == null || projC == null) continue;
-
-                    for (GameObject target : targetsSnapshot) {
-                        if (target == proj) continue;
-                        if (projC.getShooter() != null && projC.getShooter() == target) continue;
-                        HealthComponent hc = target.getComponent(HealthComponent.class);
-                        TransformComponent tTrans = target.getComponent(TransformComponent.class);
-                        if (hc != null && tTrans != null) {
-                            if (projT.getPosition().distance(tTrans.getPosition()) < 12) {
-                                actions.add(new CollisionAction(proj, target, projC.getDamage()));
-                                break; // projectile used
-                            }
-                        }
-                    }
-                }
-                return null;
-            });
-        }
-
+        long t0 = System.nanoTime();
         try {
-            List<Future<Void>> futs = executor.invokeAll(tasks);
-            for (Future<Void> f : futs) { try { f.get(); } catch (Exception ignored) {} }
-        } catch (Exception e) {
+            RangeTask.run(executor, n, collisionTuner.grainFor(n),
+                (start, end) -> detectCollisions(projectiles, start, end, targets, actions));
+        } catch (RuntimeException e) {
             System.out.println("[checkCollisions] parallel detection failed: " + e + ", falling back to serial");
             // fallback to serial
-            for (GameObject obj : allObjects) {
-                if (obj.getComponent(ProjectileComponent.class) != null) {
-                    TransformComponent projT = obj.getComponent(TransformComponent.class);
-                    ProjectileComponent projC = obj.getComponent(ProjectileComponent.class);
-                    if (projT == null || projC == null) continue;
-                    for (GameObject target : allObjects) {
-                        if (target == obj) continue;
-                        if (projC.getShooter() != null && projC.getShooter() == target) continue;
-                        HealthComponent hc = target.getComponent(HealthComponent.class);
-                        TransformComponent tTrans = target.getComponent(TransformComponent.class);
-                        if (hc != null && tTrans != null) {
-                            if (projT.getPosition().distance(tTrans.getPosition()) < 12) {
-                                hc.applyDamage(projC.getDamage());
-                                obj.destroy();
-                                if (hc.isDead()) target.destroy();
-                                break;
-                            }
-                        }
-                    }
-                }
-            }
+            actions.clear();
+            detectCollisions(projectiles, 0, n, targets, actions);
             return;
         }
+        collisionTuner.recordParallel(n, System.nanoTime() - t0);
+    }
 
-        // 在主线程串行应用动作，确保每个投射物只被处理一次（避免并发销毁/重复伤害）
-        Set<GameObject> usedProjectiles = new HashSet<>();
-        for (CollisionAction a : actions) {
-            if (a == null) continue;
+    private void detectCollisions(List<GameObject> projectiles, int start, int end, List<GameObject> targets, Queue<CollisionAction> out) {
+        for (int j = start; j < end; j++) {
+            GameObject proj = projectiles.get(j);
+            TransformComponent projT = proj.getComponent(TransformComponent.TYPE);
+            ProjectileComponent projC = proj.getComponent(ProjectileComponent.TYPE);
+            if (projT == null || projC == null) continue;
+
+            int hit = findCollisionTarget(targets, proj, projC, projT.getX(), projT.getY());
+            if (hit >= 0) {
+                out.add(new CollisionAction(proj, targets.get(hit), projC.getDamage()));
+            }
+        }
+    }
+
+    /**
+     * 碰撞阶段 apply：在主线程串行应用动作，确保每个投射物只被处理一次（避免并发销毁/重复伤害）
+     */
+    private void applyCollisions() {
+        usedProjectiles.clear();
+        CollisionAction a;
+        while ((a = collisionActions.poll()) != null) {
             GameObject proj = a.projectile;
             GameObject target = a.target;
-            if (usedProjectiles.contains(proj)) continue; // already applied
-            HealthComponent hc = target.getComponent(HealthComponent.class);
+            if (!usedProjectiles.add(proj)) continue; // already applied
+            HealthComponent hc = target.getComponent(HealthComponent.TYPE);
             if (hc != null) {
                 hc.applyDamage(a.damage);
+                // destroy projectile
                 proj.destroy();
-                usedProjectiles.add(proj);
                 if (hc.isDead()) target.destroy();
             }
         }
+        usedProjectiles.clear();
+    }
+
+    /**
+     * 重建碰撞粗检测网格：记录每个目标的位置并插入空间哈希
+     */
+    private void buildCollisionGrid(List<GameObject> targets) {
+        int n = targets.size();
+        if (targetXs.length < n) {
+            targetXs = new float[n];
+            targetYs = new float[n];
+        }
+        collisionGrid.clear(n);
+        List<TransformComponent> transforms = targetQuery.getComponents(TransformComponent.TYPE);
+        for (int i = 0; i < n; i++) {
+            TransformComponent t = transforms.get(i);
+            float x = t.getX();
+            float y = t.getY();
+            targetXs[i] = x;
+            targetYs[i] = y;
+            collisionGrid.insert(x, y, i);
+        }
+    }
+
+    /**
+     * 精确检测（与原逐个遍历相同的 < 12 距离判定与跳过射手规则），返回命中目标下标或 -1
+     */
+    private int findCollisionTarget(List<GameObject> targets, GameObject proj, ProjectileComponent projC, float px, float py) {
+        final GameObject shooter = projC.getShooter();
+        return collisionGrid.findFirst(px, py, i -> {
+            GameObject target = targets.get(i);
+            if (target == proj) return false;
+            // avoid hitting shooter
+            if (shooter != null && shooter == target) return false;
+            // 与 Vector2.distance 相同的浮点运算顺序，保证结果逐位一致
+            float dx = px - targetXs[i];
+            float dy = py - targetYs[i];
+            return (float) Math.sqrt(dx * dx + dy * dy) < 12;
+        });
     }
 
     /**
      * spawn projectile helper
      */
     private void spawnProjectile(Vector2 pos, Vector2 velocity, int damage, GameObject owner, boolean isPlayer) {
+        if (projectilePool != null) {
+            scene.addGameObject(projectilePool.acquire(pos, velocity, damage, owner, isPlayer, renderer));
+            return;
+        }
         GameObject proj = new GameObject("Projectile");
         TransformComponent t = proj.addComponent(new TransformComponent(new Vector2(pos)));
         // 三角形尺寸 - 放大以便可见性更好
@@ -676,7 +792,7 @@ public class GameLogic {
         List<GameObject> players = scene.findGameObjectsByComponent(HealthComponent.class);
         if (!players.isEmpty()) {
             GameObject player = players.get(0);
-            HealthComponent hc = player.getComponent(HealthComponent.class);
+            HealthComponent hc = player.getComponent(HealthComponent.TYPE);
             if (hc != null) {
                 String hpText = "HP: " + hc.getHp() + " / " + hc.getMaxHp();
                 renderer.drawText(hpText, 8, 18, java.awt.Color.RED);
@@ -692,6 +808,21 @@ public class GameLogic {
         }
     }
 
+    /**
+     * 启用稠密存储路径（storage 需同时作为监听器注册到场景）
+     */
+    public void setBodyStorage(BodyStorage storage) { this.bodyStorage = storage; }
+
+    /**
+     * 投射物对象池（禁用时为 null），用于读取命中/未命中计数
+     */
+    public ProjectilePool getProjectilePool() { return projectilePool; }
+
+    /**
+     * 各并行阶段当前选用的阈值与粒度（未启用并行时为空列表）
+     */
+    public List<ParallelTuner> getParallelTuners() { return tuners; }
+
     public boolean isGameOver() { return gameOver; }
     public float getSurvivalTime() { return survivalTime; }
 }
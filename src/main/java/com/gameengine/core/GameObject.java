@@ -10,9 +10,12 @@ import java.util.*;
 public class GameObject {
     protected boolean active;
     protected String name;
-    // 唯一 id（用于回放/网络等需要稳定标识符的场景）
-    protected final String uid;
+    // 唯一 id（用于回放/网络等需要稳定标识符的场景；对象池复用对象时会换发新 id）
+    protected String uid;
     protected final List<Component<?>> components;
+    // 按 ComponentType id 索引的组件槽位表（同类型多个组件时保留先添加的，与列表扫描语义一致）
+    private Component<?>[] slots = EMPTY_SLOTS;
+    private static final Component<?>[] EMPTY_SLOTS = new Component<?>[0];
     
     public GameObject() {
         this.active = true;
@@ -74,6 +77,7 @@ public class GameObject {
      */
     public void cleanup() {
         components.clear();
+        Arrays.fill(slots, null);
     }
     
     /**
@@ -82,33 +86,49 @@ public class GameObject {
     public <T extends Component<T>> T addComponent(T component) {
         component.setOwner(this);
         components.add(component);
+        registerSlots(component);
         component.initialize();
         return component;
     }
+
+    private void registerSlots(Component<?> component) {
+        int[] ids = ComponentType.ofClass(component.getClass()).getAssignableIds();
+        for (int id : ids) {
+            if (id >= slots.length) {
+                slots = Arrays.copyOf(slots, Math.max(id + 1, ComponentType.count()));
+            }
+            if (slots[id] == null) slots[id] = component;
+        }
+    }
     
     /**
      * 获取组件
      */
-    @SuppressWarnings("unchecked")
     public <T extends Component<T>> T getComponent(Class<T> componentType) {
-        for (Component<?> component : components) {
-            if (componentType.isInstance(component)) {
-                return (T) component;
-            }
-        }
-        return null;
+        return getComponent(ComponentType.of(componentType));
+    }
+
+    /**
+     * 按组件类型 id 获取组件（快速路径，热点循环中使用组件类上的 TYPE 常量）
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Component<T>> T getComponent(ComponentType<T> componentType) {
+        int id = componentType.getId();
+        return id < slots.length ? (T) slots[id] : null;
     }
     
     /**
      * 检查是否有指定类型的组件
      */
     public <T extends Component<T>> boolean hasComponent(Class<T> componentType) {
-        for (Component<?> component : components) {
-            if (componentType.isInstance(component)) {
-                return true;
-            }
-        }
-        return false;
+        return getComponent(ComponentType.of(componentType)) != null;
+    }
+
+    /**
+     * 检查是否有指定类型的组件（快速路径）
+     */
+    public <T extends Component<T>> boolean hasComponent(ComponentType<T> componentType) {
+        return getComponent(componentType) != null;
     }
     
     /**
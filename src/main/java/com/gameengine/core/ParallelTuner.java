@@ -0,0 +1,111 @@
+package com.gameengine.core;
+
+/**
+ * 单个并行阶段的运行时调优器：分别记录串行与并行执行的耗时，
+ * 据此移动串行/并行的切换阈值（元素数）以及 RecursiveAction 的叶子粒度。
+ *
+ * 代价模型：serial(n) ≈ a·n，parallel(n) ≈ c + a·n/P（a 为单元素耗时，c 为调度开销，P 为并行度），
+ * 两者相等处 n* = c / (a·(1 - 1/P)) 即新阈值。会定期执行另一条路径以刷新估计。
+ * 每个调优器只由一个阶段使用，不做同步。
+ */
+public class ParallelTuner {
+    private static final double ALPHA = 0.2;          // EWMA 平滑系数
+    private static final int MIN_THRESHOLD = 16;
+    private static final int MAX_THRESHOLD = 1 << 16;
+    private static final int MIN_GRAIN = 8;
+    private static final long TARGET_LEAF_NS = 50_000; // 每个叶子任务期望耗时约 50µs
+    private static final int PROBE_INTERVAL = 32;     // 每隔 N 次决策探测一次另一条路径（远离阈值时为 8N）
+
+    private final String name;
+    private final int parallelism;
+    private final boolean adaptive;
+    private int threshold;
+    private int grain;
+
+    private double serialNsPerItem = -1;
+    private double parallelOverheadNs = -1;
+    private long serialSamples;
+    private long parallelSamples;
+    private long decisions;
+
+    /**
+     * @param adaptive false 时阈值与粒度保持初始值（只统计耗时）
+     */
+    public ParallelTuner(String name, int parallelism, int initialThreshold, int initialGrain, boolean adaptive) {
+        this.name = name;
+        this.parallelism = Math.max(1, parallelism);
+        this.threshold = clamp(initialThreshold, MIN_THRESHOLD, MAX_THRESHOLD);
+        this.grain = Math.max(MIN_GRAIN, initialGrain);
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * 本次 n 个元素是否走并行路径
+     */
+    public boolean useParallel(int n) {
+        if (parallelism < 2 || n < MIN_THRESHOLD) return false;
+        boolean parallel = n >= threshold;
+        if (!adaptive) return parallel;
+        // 偶尔走另一条路径，否则某一侧的估计永远得不到更新：
+        // 阈值附近或另一侧尚无估计时较频繁，远离阈值时很少（防止阈值被一次异常值卡死在远端）
+        boolean nearThreshold = n >= threshold / 2 && n <= threshold * 2;
+        boolean missing = parallel ? serialNsPerItem < 0 : parallelOverheadNs < 0;
+        int interval = (nearThreshold || missing) ? PROBE_INTERVAL : PROBE_INTERVAL * 8;
+        if (++decisions % interval == 0) parallel = !parallel;
+        return parallel;
+    }
+
+    /**
+     * 叶子任务的元素数（至少切出约 4·P 个叶子，以便工作窃取均衡负载）
+     */
+    public int grainFor(int n) {
+        int maxGrain = Math.max(MIN_GRAIN, (n + parallelism * 4 - 1) / (parallelism * 4));
+        return Math.min(grain, maxGrain);
+    }
+
+    public void recordSerial(int n, long nanos) {
+        if (n <= 0) return;
+        double perItem = (double) nanos / n;
+        serialNsPerItem = serialNsPerItem < 0 ? perItem : serialNsPerItem + ALPHA * (perItem - serialNsPerItem);
+        serialSamples++;
+        retune();
+    }
+
+    public void recordParallel(int n, long nanos) {
+        if (n <= 0) return;
+        parallelSamples++;
+        if (serialNsPerItem < 0) return;
+        double overhead = Math.max(0.0, nanos - serialNsPerItem * n / parallelism);
+        parallelOverheadNs = parallelOverheadNs < 0 ? overhead : parallelOverheadNs + ALPHA * (overhead - parallelOverheadNs);
+        retune();
+    }
+
+    private void retune() {
+        if (!adaptive || serialNsPerItem <= 0) return;
+        grain = clamp((int) (TARGET_LEAF_NS / serialNsPerItem), MIN_GRAIN, MAX_THRESHOLD);
+        if (parallelOverheadNs < 0) return;
+        double gain = serialNsPerItem * (1.0 - 1.0 / parallelism);
+        double crossover = parallelOverheadNs / gain;
+        threshold = clamp((int) Math.min(MAX_THRESHOLD, Math.ceil(crossover)), MIN_THRESHOLD, MAX_THRESHOLD);
+    }
+
+    private static int clamp(int v, int lo, int hi) {
+        return v < lo ? lo : (v > hi ? hi : v);
+    }
+
+    public String getName() { return name; }
+    public int getThreshold() { return threshold; }
+    public int getGrain() { return grain; }
+    public int getParallelism() { return parallelism; }
+    public boolean isAdaptive() { return adaptive; }
+    public double getSerialNsPerItem() { return serialNsPerItem; }
+    public double getParallelOverheadNs() { return parallelOverheadNs; }
+    public long getSerialSamples() { return serialSamples; }
+    public long getParallelSamples() { return parallelSamples; }
+
+    @Override
+    public String toString() {
+        return String.format("%s: threshold=%d grain=%d serialNs/item=%.1f overheadUs=%.1f samples=%d/%d",
+            name, threshold, grain, serialNsPerItem, parallelOverheadNs / 1000.0, serialSamples, parallelSamples);
+    }
+}
@@ -0,0 +1,187 @@
+package com.gameengine.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * 帧内阶段调度器：每个阶段声明 compute 读取的资源与 apply 写入的资源（组件类型或其它标记对象）。
+ * 按声明顺序把互不冲突的相邻阶段合并为一个 stage：stage 内各阶段的 compute 并发执行，
+ * 全部完成后再按声明顺序在调用线程上执行 apply。
+ * 合并规则保证结果与逐个串行执行一致：后加入的阶段的 reads 不能与同一 stage 中之前阶段的 writes 相交。
+ */
+public class PhaseScheduler {
+    /**
+     * 一个调度阶段：compute 只读（可在工作线程执行），apply 在调用线程串行执行
+     */
+    public static final class Phase {
+        private final String name;
+        private final Set<Object> reads = new HashSet<>();
+        private final Set<Object> writes = new HashSet<>();
+        private Runnable compute;
+        private Runnable apply;
+
+        private Phase(String name) {
+            this.name = name;
+        }
+
+        public Phase reads(Object... resources) {
+            reads.addAll(Arrays.asList(resources));
+            return this;
+        }
+
+        public Phase writes(Object... resources) {
+            writes.addAll(Arrays.asList(resources));
+            return this;
+        }
+
+        public Phase compute(Runnable compute) {
+            this.compute = compute;
+            return this;
+        }
+
+        public Phase apply(Runnable apply) {
+            this.apply = apply;
+            return this;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        boolean conflictsWith(Phase earlier) {
+            for (Object r : reads) {
+                if (earlier.writes.contains(r)) return true;
+            }
+            return false;
+        }
+    }
+
+    private final ExecutorService executor;
+    private final List<Phase> phases = new ArrayList<>();
+    private List<List<Phase>> stages;
+    private final List<Future<?>> futures = new ArrayList<>();
+    // 与 futures 下标对齐的已提交阶段（每个 stage 复用）
+    private final List<Phase> submitted = new ArrayList<>();
+
+    /**
+     * @param executor 执行 compute 的线程池；为 null 时所有阶段按顺序串行执行
+     */
+    public PhaseScheduler(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * 追加一个阶段（声明顺序即语义上的执行顺序）
+     */
+    public Phase phase(String name) {
+        Phase p = new Phase(name);
+        phases.add(p);
+        stages = null;
+        return p;
+    }
+
+    /**
+     * 执行一帧：逐个 stage 并发 compute，再顺序 apply
+     */
+    public void run() {
+        if (executor == null) {
+            for (Phase p : phases) {
+                if (p.compute != null) p.compute.run();
+                if (p.apply != null) p.apply.run();
+            }
+            return;
+        }
+        for (List<Phase> stage : getStages()) {
+            runStage(stage);
+        }
+    }
+
+    private void runStage(List<Phase> stage) {
+        // 第一个有 compute 的阶段在调用线程执行（可继续使用线程池做数据并行），其余提交到线程池
+        Phase inline = null;
+        futures.clear();
+        submitted.clear();
+        for (Phase p : stage) {
+            if (p.compute == null) continue;
+            if (inline == null) {
+                inline = p;
+                continue;
+            }
+            submitted.add(p);
+            futures.add(executor.submit(p.compute));
+        }
+        Set<Phase> failed = Collections.emptySet();
+        if (inline != null) {
+            try {
+                inline.compute.run();
+            } catch (RuntimeException e) {
+                System.out.println("[PhaseScheduler] phase " + inline.name + " failed: " + e);
+                failed = new HashSet<>();
+                failed.add(inline);
+            }
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (Exception e) {
+                System.out.println("[PhaseScheduler] phase " + submitted.get(i).name + " failed: " + e);
+                if (failed.isEmpty()) failed = new HashSet<>();
+                failed.add(submitted.get(i));
+            }
+        }
+        futures.clear();
+        submitted.clear();
+        for (Phase p : stage) {
+            // compute 失败的阶段跳过 apply（其待应用结果不完整）
+            if (p.apply != null && !failed.contains(p)) p.apply.run();
+        }
+    }
+
+    /**
+     * 分组结果（首次执行时按声明计算并缓存）
+     */
+    public List<List<Phase>> getStages() {
+        if (stages == null) {
+            List<List<Phase>> result = new ArrayList<>();
+            List<Phase> current = new ArrayList<>();
+            for (Phase p : phases) {
+                boolean conflict = false;
+                for (Phase earlier : current) {
+                    if (p.conflictsWith(earlier)) {
+                        conflict = true;
+                        break;
+                    }
+                }
+                if (conflict) {
+                    result.add(Collections.unmodifiableList(current));
+                    current = new ArrayList<>();
+                }
+                current.add(p);
+            }
+            if (!current.isEmpty()) result.add(Collections.unmodifiableList(current));
+            stages = Collections.unmodifiableList(result);
+        }
+        return stages;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (List<Phase> stage : getStages()) {
+            if (sb.length() > 0) sb.append(" -> ");
+            sb.append('[');
+            for (int i = 0; i < stage.size(); i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(stage.get(i).name);
+            }
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,143 @@
+package com.gameengine.core;
+
+import com.gameengine.components.PhysicsComponent;
+import com.gameengine.components.ProjectileComponent;
+import com.gameengine.components.RenderComponent;
+import com.gameengine.components.TransformComponent;
+import com.gameengine.graphics.IRenderer;
+import com.gameengine.math.Vector2;
+import com.gameengine.scene.SceneListener;
+
+import java.util.ArrayDeque;
+
+/**
+ * 投射物对象池：复用投射物 GameObject 及其四个组件，避免持续射击时的大量短命对象。
+ * 作为 SceneListener 注册到场景，投射物离开场景后自动回收；空闲对象数量不超过 maxSize。
+ */
+public class ProjectilePool implements SceneListener {
+    static final RenderComponent.Color PLAYER_COLOR = new RenderComponent.Color(0.0f, 1.0f, 0.6f, 1.0f);
+    static final RenderComponent.Color ENEMY_COLOR = new RenderComponent.Color(1.0f, 0.3f, 0.2f, 1.0f);
+
+    /**
+     * 池化的投射物对象：离开场景时保留组件以便复用
+     */
+    static class PooledProjectile extends GameObject {
+        final TransformComponent transform;
+        final RenderComponent render;
+        final PhysicsComponent physics;
+        final ProjectileComponent projectile;
+        boolean inPool;
+
+        PooledProjectile() {
+            super("Projectile");
+            transform = addComponent(new TransformComponent(new Vector2()));
+            // 三角形尺寸 - 放大以便可见性更好
+            render = addComponent(new RenderComponent(RenderComponent.RenderType.TRIANGLE, new Vector2(12, 12), PLAYER_COLOR));
+            physics = addComponent(new PhysicsComponent(0.0f));
+            projectile = addComponent(new ProjectileComponent(new Vector2(), 3.0f, 1, null));
+        }
+
+        @Override
+        public void cleanup() {
+            // 组件由对象池复用，不清空
+        }
+
+        void revive(long serial) {
+            this.uid = "projectile-" + serial;
+            this.active = true;
+        }
+    }
+
+    private final ArrayDeque<PooledProjectile> free = new ArrayDeque<>();
+    private final int maxSize;
+    private long hits;
+    private long misses;
+    private long released;
+    private long dropped;
+    private long serial;
+
+    /**
+     * @param maxSize 最多保留的空闲对象数（超过时回收的对象交给 GC）
+     */
+    public ProjectilePool(int maxSize) {
+        this.maxSize = Math.max(0, maxSize);
+    }
+
+    /**
+     * 预先创建对象，避免开局阶段的未命中
+     */
+    public void prewarm(int count) {
+        for (int i = 0; i < count && free.size() < maxSize; i++) {
+            PooledProjectile p = new PooledProjectile();
+            p.inPool = true;
+            free.push(p);
+        }
+    }
+
+    /**
+     * 取出一个投射物并重置为新发射状态（调用方负责 scene.addGameObject）
+     */
+    public GameObject acquire(Vector2 pos, Vector2 velocity, int damage, GameObject shooter, boolean isPlayer, IRenderer renderer) {
+        PooledProjectile p = free.poll();
+        if (p != null) {
+            hits++;
+            p.inPool = false;
+        } else {
+            misses++;
+            p = new PooledProjectile();
+        }
+        p.revive(++serial);
+        p.transform.setPosition(pos.x, pos.y);
+        p.transform.snapPrevious();
+        p.render.setColor(isPlayer ? PLAYER_COLOR : ENEMY_COLOR);
+        p.render.setVisible(true);
+        p.render.setEnabled(true);
+        if (renderer != null) p.render.setRenderer(renderer);
+        // 将旋转设置为与速度方向一致（使三角形朝向飞行方向）
+        float rot = 0.0f;
+        if (velocity != null) {
+            rot = (float) Math.toDegrees(Math.atan2(velocity.y, velocity.x)) + 90f; // adjust so triangle points along velocity
+        }
+        p.render.setRotation(rot);
+        p.transform.setEnabled(true);
+        p.physics.reset();
+        p.projectile.reset(velocity, 3.0f, damage, shooter);
+        return p;
+    }
+
+    @Override
+    public void objectRemoved(GameObject obj) {
+        if (!(obj instanceof PooledProjectile)) return;
+        PooledProjectile p = (PooledProjectile) obj;
+        if (p.inPool) return;
+        p.projectile.clearShooter();
+        released++;
+        if (free.size() >= maxSize) {
+            dropped++;
+            return;
+        }
+        p.inPool = true;
+        free.push(p);
+    }
+
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    public long getReleased() { return released; }
+    public long getDropped() { return dropped; }
+    public int getFreeCount() { return free.size(); }
+    public int getMaxSize() { return maxSize; }
+
+    /**
+     * 命中率（0..1），用于根据负载调整池大小
+     */
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d misses=%d hitRate=%.3f free=%d/%d released=%d dropped=%d",
+            hits, misses, getHitRate(), free.size(), maxSize, released, dropped);
+    }
+}
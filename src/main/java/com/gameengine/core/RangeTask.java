@@ -0,0 +1,54 @@
+package com.gameengine.core;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 对下标区间 [start, end) 递归二分的 ForkJoin 任务，区间不大于 grain 时直接执行。
+ * 在工作线程内嵌套调用是安全的（join 时会窃取执行其它任务，而不是阻塞线程）。
+ */
+class RangeTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 区间处理函数
+     */
+    interface Body {
+        void run(int start, int end);
+    }
+
+    private final Body body;
+    private final int start;
+    private final int end;
+    private final int grain;
+
+    RangeTask(Body body, int start, int end, int grain) {
+        this.body = body;
+        this.start = start;
+        this.end = end;
+        this.grain = Math.max(1, grain);
+    }
+
+    @Override
+    protected void compute() {
+        if (end - start <= grain) {
+            body.run(start, end);
+            return;
+        }
+        int mid = (start + end) >>> 1;
+        invokeAll(new RangeTask(body, start, mid, grain), new RangeTask(body, mid, end, grain));
+    }
+
+    /**
+     * 在 pool 中并行处理 [0, n)，返回时全部完成
+     */
+    static void run(ForkJoinPool pool, int n, int grain, Body body) {
+        RangeTask task = new RangeTask(body, 0, n, grain);
+        if (ForkJoinTask.inForkJoinPool() && ForkJoinTask.getPool() == pool) {
+            task.invoke();
+        } else {
+            pool.invoke(task);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.gameengine.core;
+
+import java.util.Arrays;
+
+/**
+ * 均匀网格空间哈希（碰撞粗检测 broadphase）
+ * 每帧 clear() 后按条目序号 insert()，查询时只返回查询点所在格及其 8 个相邻格中的条目。
+ * 内部全部使用原始数组与链表下标，重建时不产生对象分配。
+ */
+public class SpatialHash {
+    /**
+     * 候选条目的精确检测（narrowphase）
+     */
+    public interface Candidate {
+        boolean test(int item);
+    }
+
+    /**
+     * 区域查询的条目回调
+     */
+    public interface Visitor {
+        void visit(int item);
+    }
+
+    private final float cellSize;
+    private final float invCellSize;
+    // 桶头（桶数为 2 的幂，下标为格坐标哈希）
+    private int[] heads = new int[64];
+    // 条目数组：所在格坐标、条目编号、同桶链表的下一个条目
+    private int[] cellXs = new int[64];
+    private int[] cellYs = new int[64];
+    private int[] items = new int[64];
+    private int[] next = new int[64];
+    private int count;
+
+    /**
+     * @param cellSize 格子边长，必须不小于查询半径，保证 3x3 邻域覆盖所有可能命中
+     */
+    public SpatialHash(float cellSize) {
+        if (cellSize <= 0) throw new IllegalArgumentException("cellSize must be > 0");
+        this.cellSize = cellSize;
+        this.invCellSize = 1.0f / cellSize;
+        Arrays.fill(heads, -1);
+    }
+
+    /**
+     * 清空网格，expectedCount 用于预先调整桶数以保持链表较短
+     */
+    public void clear(int expectedCount) {
+        int want = 64;
+        while (want < expectedCount * 2) want <<= 1;
+        if (heads.length != want) {
+            heads = new int[want];
+        }
+        Arrays.fill(heads, -1);
+        count = 0;
+    }
+
+    public void clear() {
+        clear(count);
+    }
+
+    /**
+     * 插入条目（item 通常为对象在场景列表中的序号）
+     */
+    public void insert(float x, float y, int item) {
+        if (count == items.length) grow();
+        int cx = cellOf(x);
+        int cy = cellOf(y);
+        int b = bucket(cx, cy);
+        cellXs[count] = cx;
+        cellYs[count] = cy;
+        items[count] = item;
+        next[count] = heads[b];
+        heads[b] = count;
+        count++;
+    }
+
+    /**
+     * 在 (x, y) 的 3x3 邻域内查找通过 filter 检测的最小条目编号，找不到返回 -1。
+     * 返回最小编号使得结果与按场景顺序逐个遍历时“第一个命中”的语义一致。
+     */
+    public int findFirst(float x, float y, Candidate filter) {
+        int cx = cellOf(x);
+        int cy = cellOf(y);
+        int best = -1;
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                int tx = cx + dx;
+                int ty = cy + dy;
+                for (int e = heads[bucket(tx, ty)]; e >= 0; e = next[e]) {
+                    // 不同格可能落入同一桶，按格坐标过滤
+                    if (cellXs[e] != tx || cellYs[e] != ty) continue;
+                    int item = items[e];
+                    if (best >= 0 && item >= best) continue;
+                    if (filter.test(item)) best = item;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 访问与矩形 [minX, maxX] x [minY, maxY] 相交的所有格子中的条目。
+     * 结果按格粗筛，可能包含矩形外的条目，精确范围由调用方判断；矩形可大于格子边长。
+     */
+    public void forEachInRect(float minX, float minY, float maxX, float maxY, Visitor visitor) {
+        int x0 = cellOf(minX), x1 = cellOf(maxX);
+        int y0 = cellOf(minY), y1 = cellOf(maxY);
+        for (int ty = y0; ty <= y1; ty++) {
+            for (int tx = x0; tx <= x1; tx++) {
+                for (int e = heads[bucket(tx, ty)]; e >= 0; e = next[e]) {
+                    if (cellXs[e] != tx || cellYs[e] != ty) continue;
+                    visitor.visit(items[e]);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    private int cellOf(float v) {
+        return (int) Math.floor(v * invCellSize);
+    }
+
+    private int bucket(int cx, int cy) {
+        int h = cx * 0x9E3779B1 ^ cy * 0x85EBCA77;
+        h ^= h >>> 15;
+        return h & (heads.length - 1);
+    }
+
+    private void grow() {
+        int n = items.length * 2;
+        cellXs = Arrays.copyOf(cellXs, n);
+        cellYs = Arrays.copyOf(cellYs, n);
+        items = Arrays.copyOf(items, n);
+        next = Arrays.copyOf(next, n);
+    }
+}
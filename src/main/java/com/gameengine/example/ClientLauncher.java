@@ -3,7 +3,7 @@ package com.gameengine.example;
 import com.gameengine.core.GameEngine;
 import com.gameengine.graphics.IRenderer;
 import com.gameengine.input.InputManager;
-import com.gameengine.net.NioClient;
+import com.gameengine.net.NetClient;
 import com.gameengine.net.NetworkBuffer;
 
 public class ClientLauncher {
@@ -11,7 +11,7 @@ public class ClientLauncher {
         String host = args.length > 0 ? args[0] : "127.0.0.1";
         int port = 7777;
         NetworkBuffer buffer = new NetworkBuffer();
-        NioClient client = new NioClient(host, port, buffer);
+        NetClient client = NetClient.create(host, port, buffer);
         Thread t = new Thread(client, "nio-client");
         t.start();
 
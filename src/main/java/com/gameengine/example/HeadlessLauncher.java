@@ -0,0 +1,28 @@
+package com.gameengine.example;
+
+import com.gameengine.core.GameEngine;
+import com.gameengine.graphics.HeadlessRenderer;
+import com.gameengine.graphics.RendererFactory;
+import com.gameengine.scene.GameScene;
+
+/**
+ * 无窗口运行 GameScene，用于服务器与 CI 上的性能测试。
+ * 用法: HeadlessLauncher [ticks] [tickRate] [paced]
+ * 例如 ./run.sh headless 3600 60 false —— 尽可能快地模拟 3600 个 tick
+ */
+public class HeadlessLauncher {
+    public static void main(String[] args) {
+        long ticks = args.length > 0 ? Long.parseLong(args[0]) : 3600;
+        float tickRate = args.length > 1 ? Float.parseFloat(args[1]) : 60f;
+        boolean paced = args.length > 2 && Boolean.parseBoolean(args[2]);
+
+        HeadlessRenderer renderer = RendererFactory.createHeadlessRenderer(1280, 800, "headless");
+        GameEngine engine = new GameEngine("headless", renderer);
+        engine.setScene(new GameScene(engine));
+        Runtime.getRuntime().addShutdownHook(new Thread(renderer::requestClose));
+
+        engine.runHeadless(tickRate, ticks, paced);
+        System.out.println("[HeadlessLauncher] renderer: " + renderer);
+        engine.cleanup();
+    }
+}
@@ -0,0 +1,175 @@
+package com.gameengine.example;
+
+import com.gameengine.net.NioServer;
+import com.gameengine.net.Room;
+import com.gameengine.net.TickStats;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * NioServer 反应器线程数扩展性基准：在同一进程内启动服务器，用若干负载线程建立大量 JSON 文本协议连接，
+ * 每个连接以 20Hz 发送移动+射击输入并读取全部关键帧，统计连接数、房间数、每秒收到的消息数与字节数。
+ * 连接不指定房间，按 NET_ROOM_CAPACITY 自动分配。
+ * 用法：NetBenchmark [clients] [seconds] [ioThreads 列表，如 1,2,4]
+ */
+public class NetBenchmark {
+    private static final int BASE_PORT = 7900;
+    private static final int LOAD_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        String list = args.length > 2 ? args[2] : "1,2,4";
+        System.out.println("[NetBenchmark] clients=" + clients + " seconds=" + seconds + " loadThreads=" + LOAD_THREADS);
+        System.out.println(String.format("%9s %10s %6s %10s %10s %10s %10s",
+            "ioThreads", "connected", "rooms", "msgs/s", "MB/s", "tickAvgMs", "tickMaxMs"));
+        for (String s : list.split(",")) {
+            int threads = Integer.parseInt(s.trim());
+            runOnce(clients, seconds, threads, BASE_PORT + threads);
+        }
+        System.exit(0);
+    }
+
+    private static void runOnce(int clients, int seconds, int ioThreads, int port) throws Exception {
+        NioServer server = new NioServer(port, ioThreads);
+        Thread st = new Thread(server, "nio-server");
+        st.start();
+        Thread.sleep(300);
+
+        List<LoadClients> loads = new ArrayList<>();
+        List<Thread> loadThreads = new ArrayList<>();
+        for (int i = 0; i < LOAD_THREADS; i++) {
+            int n = clients / LOAD_THREADS + (i < clients % LOAD_THREADS ? 1 : 0);
+            LoadClients lc = new LoadClients(port, n, i);
+            loads.add(lc);
+            Thread t = new Thread(lc, "bench-load-" + i);
+            t.setDaemon(true);
+            t.start();
+            loadThreads.add(t);
+        }
+
+        // 预热：等待连接建立、JIT 编译
+        Thread.sleep(1500);
+        long msgs0 = 0, bytes0 = 0;
+        for (LoadClients lc : loads) { msgs0 += lc.messages.get(); bytes0 += lc.bytes.get(); }
+        for (Room room : server.getRooms()) {
+            synchronized (room.getTickStats()) { room.getTickStats().reset(); }
+        }
+        long t0 = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        long t1 = System.nanoTime();
+        long msgs1 = 0, bytes1 = 0;
+        for (LoadClients lc : loads) { msgs1 += lc.messages.get(); bytes1 += lc.bytes.get(); }
+        double secs = (t1 - t0) / 1e9;
+        // 各房间 tick 耗时：按 tick 数加权平均，最大值取所有房间的最大值
+        List<Room> rooms = server.getRooms();
+        double tickSum = 0, tickMax = 0;
+        long ticks = 0;
+        for (Room room : rooms) {
+            TickStats ts = room.getTickStats();
+            synchronized (ts) {
+                tickSum += ts.getAvgMillis() * ts.getTicks();
+                ticks += ts.getTicks();
+                tickMax = Math.max(tickMax, ts.getMaxMillis());
+            }
+        }
+        System.out.println(String.format("%9d %10d %6d %10.0f %10.2f %10.3f %10.3f",
+            ioThreads, server.getConnectionCount(), rooms.size(), (msgs1 - msgs0) / secs,
+            (bytes1 - bytes0) / secs / (1024.0 * 1024.0), ticks == 0 ? 0.0 : tickSum / ticks, tickMax));
+
+        for (LoadClients lc : loads) lc.running = false;
+        for (Thread t : loadThreads) t.join(2000);
+        server.stop();
+        st.join(2000);
+        Thread.sleep(300);
+    }
+
+    /**
+     * 一个负载线程：用一个 Selector 驱动 count 个客户端连接
+     */
+    private static class LoadClients implements Runnable {
+        final AtomicLong messages = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+        volatile boolean running = true;
+        private final int port;
+        private final int count;
+        private final Random random;
+
+        LoadClients(int port, int count, int seed) {
+            this.port = port;
+            this.count = count;
+            this.random = new Random(seed);
+        }
+
+        @Override public void run() {
+            List<SocketChannel> connected = new ArrayList<>();
+            ByteBuffer in = ByteBuffer.allocateDirect(64 * 1024);
+            try (Selector selector = Selector.open()) {
+                for (int i = 0; i < count; i++) {
+                    SocketChannel sc = SocketChannel.open();
+                    sc.configureBlocking(false);
+                    sc.connect(new InetSocketAddress("127.0.0.1", port));
+                    sc.register(selector, SelectionKey.OP_CONNECT);
+                }
+                long nextInput = System.nanoTime();
+                while (running) {
+                    selector.select(5);
+                    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey key = it.next(); it.remove();
+                        SocketChannel sc = (SocketChannel) key.channel();
+                        try {
+                            if (key.isConnectable()) {
+                                sc.finishConnect();
+                                key.interestOps(SelectionKey.OP_READ);
+                                write(sc, "HELLO:bench" + connected.size() + "\n");
+                                connected.add(sc);
+                            } else if (key.isReadable()) {
+                                in.clear();
+                                int n = sc.read(in);
+                                if (n < 0) { key.cancel(); sc.close(); continue; }
+                                long lines = 0;
+                                for (int i = 0; i < n; i++) if (in.get(i) == '\n') lines++;
+                                bytes.addAndGet(n);
+                                messages.addAndGet(lines);
+                            }
+                        } catch (IOException e) {
+                            key.cancel();
+                            try { sc.close(); } catch (IOException ignored) {}
+                        }
+                    }
+                    long now = System.nanoTime();
+                    if (now >= nextInput) {
+                        nextInput = now + 50_000_000L; // 20Hz
+                        for (SocketChannel sc : connected) {
+                            if (!sc.isOpen()) continue;
+                            float vx = random.nextInt(3) - 1, vy = random.nextInt(3) - 1;
+                            float a = random.nextFloat() * 6.2831855f;
+                            write(sc, "INPUT:" + vx + "," + vy + ",1," + Math.cos(a) + "," + Math.sin(a) + "\n");
+                        }
+                    }
+                }
+                for (SocketChannel sc : connected) sc.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        private static void write(SocketChannel sc, String line) {
+            try {
+                sc.write(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)));
+            } catch (IOException ignored) { }
+        }
+    }
+}
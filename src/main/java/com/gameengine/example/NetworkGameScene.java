@@ -6,24 +6,30 @@ import com.gameengine.core.GameObject;
 import com.gameengine.graphics.IRenderer;
 import com.gameengine.input.InputManager;
 import com.gameengine.math.Vector2;
-import com.gameengine.net.NioClient;
+import com.gameengine.net.ClientPrediction;
+import com.gameengine.net.NetClient;
 import com.gameengine.net.NetworkBuffer;
 import com.gameengine.net.NetState;
 import com.gameengine.core.GameEngine;
 
 /**
  * 客户端场景：从 NetworkBuffer 采样插值并发送输入。
+ * 自己的玩家不走插值延迟：按本地输入即时预测（ClientPrediction），收到新快照时以服务器位置为准重放未确认的输入。
  */
 public class NetworkGameScene extends com.gameengine.scene.Scene {
     private final IRenderer renderer;
     private final InputManager input;
-    private final NioClient client;
+    private final NetClient client;
     private final NetworkBuffer buffer;
     private final GameEngine engine;
     private final java.util.Map<Integer, GameObject> players = new java.util.HashMap<>();
     private final java.util.Map<Integer, GameObject> bullets = new java.util.HashMap<>();
+    private final ClientPrediction prediction = new ClientPrediction();
+    private long reconciledFrames;
+    // 本帧的插值结果，update 采样一次，render 复用
+    private NetworkBuffer.Sample frame;
 
-    public NetworkGameScene(GameEngine engine, IRenderer renderer, InputManager input, NioClient client, NetworkBuffer buffer) {
+    public NetworkGameScene(GameEngine engine, IRenderer renderer, InputManager input, NetClient client, NetworkBuffer buffer) {
         super("NetworkGameScene");
         this.engine = engine;
         this.renderer = renderer;
@@ -40,11 +46,21 @@ public class NetworkGameScene extends com.gameengine.scene.Scene {
 
     @Override
     public void update(float deltaTime) {
-        // 采样当前快照并检查自身是否死亡
-        java.util.Map<Integer, NetState.EntitySnapshot> latest = buffer.sampleMap(System.currentTimeMillis());
-        NetState.EntitySnapshot meSnap = latest.get(client.getOwnId());
+        // 每帧只插值采样一次，并检查自身是否死亡
+        frame = buffer.sample(System.currentTimeMillis());
+        int selfId = client.getOwnId();
+        NetState.EntitySnapshot meSnap = frame.find(selfId);
         boolean dead = (meSnap != null && meSnap.hp <= 0);
 
+        // 最新关键帧（不经插值延迟）到达时校正本地预测
+        long frames = buffer.getFramesReceived();
+        if (frames != reconciledFrames) {
+            reconciledFrames = frames;
+            NetState.EntitySnapshot auth = buffer.latestEntity(selfId);
+            if (auth != null) prediction.reconcile(auth.x, auth.y, auth.inputSeq);
+        }
+        prediction.update(deltaTime);
+
         if (!dead) {
             // 采集输入（箭头键），转换为方向向量 + 射击 + 视线方向
             float vx = 0f, vy = 0f;
@@ -58,12 +74,13 @@ public class NetworkGameScene extends com.gameengine.scene.Scene {
             if (meSnap != null) {
                 float mx = input.getMouseX();
                 float my = input.getMouseY();
-                ax = mx - meSnap.x;
-                ay = my - meSnap.y;
+                ax = mx - (prediction.hasState() ? prediction.getX() : meSnap.x);
+                ay = my - (prediction.hasState() ? prediction.getY() : meSnap.y);
                 float norm = (float)Math.sqrt(ax*ax + ay*ay);
                 if (norm > 0.0001f) { ax /= norm; ay /= norm; } else { ax = 0f; ay = -1f; }
             }
-            client.sendInput(vx, vy, fire, ax, ay);
+            int seq = client.sendInput(vx, vy, fire, ax, ay);
+            prediction.applyInput(seq, vx, vy, deltaTime);
         } else {
             // 死亡后按键：R 重连进入联机，M 返回菜单
             if (input.isKeyJustPressed('R') || input.isKeyJustPressed(82)) {
@@ -71,7 +88,7 @@ public class NetworkGameScene extends com.gameengine.scene.Scene {
                     client.stop();
                 } catch (Exception ignored) {}
                 com.gameengine.net.NetworkBuffer nb = new com.gameengine.net.NetworkBuffer();
-                com.gameengine.net.NioClient nc = new com.gameengine.net.NioClient("127.0.0.1", 7777, nb);
+                com.gameengine.net.NetClient nc = com.gameengine.net.NetClient.create("127.0.0.1", 7777, nb);
                 new Thread(nc, "nio-client").start();
                 com.gameengine.example.NetworkGameScene netScene = new com.gameengine.example.NetworkGameScene(engine, renderer, input, nc, nb);
                 engine.setScene(netScene);
@@ -84,13 +101,12 @@ public class NetworkGameScene extends com.gameengine.scene.Scene {
             }
         }
 
-        // 插值采样服务器广播的关键帧
-        java.util.Map<Integer, NetState.EntitySnapshot> map = buffer.sampleMap(System.currentTimeMillis());
+        // 按插值结果同步可视对象
         java.util.Set<Integer> seenPlayers = new java.util.HashSet<>();
         java.util.Set<Integer> seenBullets = new java.util.HashSet<>();
-        int selfId = client.getOwnId();
 
-        for (NetState.EntitySnapshot e : map.values()) {
+        for (int i = 0; i < frame.size(); i++) {
+            NetState.EntitySnapshot e = frame.get(i);
             if (e.kind == NetState.KIND_PLAYER) {
                 seenPlayers.add(e.id);
                 GameObject obj = players.get(e.id);
@@ -101,7 +117,10 @@ public class NetworkGameScene extends com.gameengine.scene.Scene {
                     addGameObject(obj);
                 }
                 TransformComponent tc = obj.getComponent(TransformComponent.class);
-                if (tc != null) tc.setPosition(new Vector2(e.x, e.y));
+                if (tc != null) {
+                    if (e.id == selfId && prediction.hasState() && !dead) tc.setPosition(new Vector2(prediction.getX(), prediction.getY()));
+                    else tc.setPosition(new Vector2(e.x, e.y));
+                }
             } else if (e.kind == NetState.KIND_BULLET) {
                 seenBullets.add(e.id);
                 GameObject obj = bullets.get(e.id);
@@ -152,9 +171,9 @@ public class NetworkGameScene extends com.gameengine.scene.Scene {
     public void render() {
         super.render();
         // HUD: 自身 HP 与标签
+        if (frame == null) return;
         int selfId = client.getOwnId();
-        java.util.Map<Integer, NetState.EntitySnapshot> snap = buffer.sampleMap(System.currentTimeMillis());
-        NetState.EntitySnapshot me = snap.get(selfId);
+        NetState.EntitySnapshot me = frame.find(selfId);
         if (me != null) {
             renderer.drawText("HP:" + me.hp, 16, 24, new java.awt.Color(255, 255, 255));
             if (me.hp <= 0) {
@@ -168,11 +187,14 @@ public class NetworkGameScene extends com.gameengine.scene.Scene {
         }
 
         // 绘制其他玩家名字（如果有）
-        for (NetState.EntitySnapshot e : snap.values()) {
+        for (int i = 0; i < frame.size(); i++) {
+            NetState.EntitySnapshot e = frame.get(i);
             if (e.kind == NetState.KIND_PLAYER) {
                 String nm = client.getName(e.id);
                 if (nm != null && !nm.isEmpty()) {
-                    renderer.drawText(nm, (int)e.x + 10, (int)e.y - 36, new java.awt.Color(220, 220, 220));
+                    float nx = e.x, ny = e.y;
+                    if (e.id == selfId && prediction.hasState() && e.hp > 0) { nx = prediction.getX(); ny = prediction.getY(); }
+                    renderer.drawText(nm, (int)nx + 10, (int)ny - 36, new java.awt.Color(220, 220, 220));
                 }
             }
         }
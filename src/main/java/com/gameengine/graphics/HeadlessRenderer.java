@@ -0,0 +1,124 @@
+package com.gameengine.graphics;
+
+import java.awt.Color;
+
+/**
+ * 无窗口渲染器：不做任何绘制，只统计各类调用次数。
+ * 用于服务器与 CI 上运行 GameLogic/Scene（无显示器、无 GPU）。
+ */
+public class HeadlessRenderer implements IRenderer {
+    private final int width;
+    private final int height;
+    private final String title;
+    private volatile boolean closeRequested;
+
+    private long frames;
+    private long rects;
+    private long circles;
+    private long lines;
+    private long triangles;
+    private long texts;
+    private long polls;
+
+    public HeadlessRenderer(int width, int height, String title) {
+        this.width = width;
+        this.height = height;
+        this.title = title;
+    }
+
+    @Override
+    public void beginFrame() {
+        frames++;
+    }
+
+    @Override
+    public void endFrame() {
+    }
+
+    @Override
+    public void drawRect(float x, float y, float width, float height, float r, float g, float b, float a) {
+        rects++;
+    }
+
+    @Override
+    public void drawCircle(float x, float y, float radius, int segments, float r, float g, float b, float a) {
+        circles++;
+    }
+
+    @Override
+    public void drawLine(float x1, float y1, float x2, float y2, float r, float g, float b, float a) {
+        lines++;
+    }
+
+    @Override
+    public void drawTriangle(float x, float y, float size, float rotation, float r, float g, float b, float a) {
+        triangles++;
+    }
+
+    @Override
+    public void drawText(String text, int x, int y, Color color) {
+        texts++;
+    }
+
+    @Override
+    public boolean shouldClose() {
+        return closeRequested;
+    }
+
+    @Override
+    public void pollEvents() {
+        polls++;
+    }
+
+    @Override
+    public void cleanup() {
+        closeRequested = true;
+    }
+
+    /**
+     * 请求结束（等同于关闭窗口），可从其他线程调用
+     */
+    public void requestClose() {
+        closeRequested = true;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public String getTitle() {
+        return title;
+    }
+
+    public long getFrames() { return frames; }
+    public long getRects() { return rects; }
+    public long getCircles() { return circles; }
+    public long getLines() { return lines; }
+    public long getTriangles() { return triangles; }
+    public long getTexts() { return texts; }
+    public long getPolls() { return polls; }
+
+    /**
+     * 所有绘制调用之和
+     */
+    public long getDrawCalls() {
+        return rects + circles + lines + triangles + texts;
+    }
+
+    public void resetCounters() {
+        frames = rects = circles = lines = triangles = texts = polls = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("frames=%d draws=%d (rect=%d circle=%d line=%d tri=%d text=%d)",
+            frames, getDrawCalls(), rects, circles, lines, triangles, texts);
+    }
+}
@@ -2,6 +2,10 @@ package com.gameengine.graphics;
 
 public class RendererFactory {
     public static IRenderer createRenderer(int width, int height, String title) {
+        // GAME_HEADLESS=1 时不创建窗口（服务器 / CI）
+        if (isHeadlessRequested()) {
+            return createHeadlessRenderer(width, height, title);
+        }
         // 强制使用 GPU 渲染（不再回退到 Swing）。
         // 注意：在 macOS 上必须通过 JVM 参数 -XstartOnFirstThread 启动进程，否则 GLFW/AppKit 会崩溃。
         try {
@@ -14,4 +18,21 @@ public class RendererFactory {
             throw new RuntimeException(msg, t);
         }
     }
+
+    /**
+     * 创建不依赖窗口与 GPU 的渲染器
+     */
+    public static HeadlessRenderer createHeadlessRenderer(int width, int height, String title) {
+        System.out.println("RendererFactory: creating HeadlessRenderer");
+        return new HeadlessRenderer(width, height, title);
+    }
+
+    private static boolean isHeadlessRequested() {
+        try {
+            String env = System.getenv("GAME_HEADLESS");
+            return env != null && (env.equalsIgnoreCase("true") || env.equals("1"));
+        } catch (SecurityException se) {
+            return false;
+        }
+    }
 }
@@ -69,7 +69,122 @@ public class Vector2 {
      * 计算距离
      */
     public float distance(Vector2 other) {
-        return this.subtract(other).magnitude();
+        return distance(this.x, this.y, other.x, other.y);
+    }
+
+    /**
+     * 计算两点距离（不分配对象，结果与 a.distance(b) 逐位一致）
+     */
+    public static float distance(float x1, float y1, float x2, float y2) {
+        float dx = x1 - x2;
+        float dy = y1 - y2;
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    // ---- 原地修改 / 写入目标对象的版本（热点路径使用，避免每帧分配） ----
+
+    /**
+     * 设置分量
+     */
+    public Vector2 set(float x, float y) {
+        this.x = x;
+        this.y = y;
+        return this;
+    }
+
+    /**
+     * 复制另一个向量的分量
+     */
+    public Vector2 set(Vector2 other) {
+        this.x = other.x;
+        this.y = other.y;
+        return this;
+    }
+
+    /**
+     * 原地加法
+     */
+    public Vector2 addLocal(Vector2 other) {
+        this.x += other.x;
+        this.y += other.y;
+        return this;
+    }
+
+    /**
+     * 原地加法
+     */
+    public Vector2 addLocal(float dx, float dy) {
+        this.x += dx;
+        this.y += dy;
+        return this;
+    }
+
+    /**
+     * 原地加上 other * scalar
+     */
+    public Vector2 addScaledLocal(Vector2 other, float scalar) {
+        this.x += other.x * scalar;
+        this.y += other.y * scalar;
+        return this;
+    }
+
+    /**
+     * 原地减法
+     */
+    public Vector2 subtractLocal(Vector2 other) {
+        this.x -= other.x;
+        this.y -= other.y;
+        return this;
+    }
+
+    /**
+     * 原地标量乘法
+     */
+    public Vector2 scaleLocal(float scalar) {
+        this.x *= scalar;
+        this.y *= scalar;
+        return this;
+    }
+
+    /**
+     * 原地标准化（零向量保持为零）
+     */
+    public Vector2 normalizeLocal() {
+        float mag = magnitude();
+        if (mag == 0) return set(0, 0);
+        this.x = x / mag;
+        this.y = y / mag;
+        return this;
+    }
+
+    /**
+     * 向量加法，结果写入 dest（dest 可以是 this 或 other）
+     */
+    public Vector2 add(Vector2 other, Vector2 dest) {
+        return dest.set(this.x + other.x, this.y + other.y);
+    }
+
+    /**
+     * 向量减法，结果写入 dest（dest 可以是 this 或 other）
+     */
+    public Vector2 subtract(Vector2 other, Vector2 dest) {
+        return dest.set(this.x - other.x, this.y - other.y);
+    }
+
+    /**
+     * 标量乘法，结果写入 dest
+     */
+    public Vector2 multiply(float scalar, Vector2 dest) {
+        return dest.set(this.x * scalar, this.y * scalar);
+    }
+
+    /**
+     * 标准化，结果写入 dest
+     */
+    public Vector2 normalize(Vector2 dest) {
+        float mag = magnitude();
+        if (mag == 0) return dest.set(0, 0);
+        return dest.set(x / mag, y / mag);
     }
     
     @Override
@@ -0,0 +1,102 @@
+package com.gameengine.net;
+
+/**
+ * Predicts the local player's position from its own inputs instead of waiting for the interpolated,
+ * delayed server state. Every input sent is applied immediately with PlayerMovement and remembered;
+ * when a snapshot arrives, the predicted position is rebuilt from the server's position plus a replay of
+ * the inputs the server hadn't applied yet (its echoed input seq). The difference between the old and the
+ * rebuilt prediction is kept as a display offset that decays away, so corrections don't jump.
+ * Used from the game thread only.
+ */
+public class ClientPrediction {
+    private static final int CAPACITY = 256;
+    // display error decays by e^-rate per second; larger errors (teleports, respawns) snap
+    private static final float CORRECTION_RATE = 10f;
+    private static final float SNAP_DISTANCE = 100f;
+
+    private final int[] seqs = new int[CAPACITY];
+    private final float[] inVx = new float[CAPACITY];
+    private final float[] inVy = new float[CAPACITY];
+    private final float[] inDt = new float[CAPACITY];
+    private int newestSeq;
+    private int ackedSeq;
+    private boolean hasState;
+    private float x, y;
+    private float errorX, errorY;
+
+    /**
+     * Records an input just sent and moves the prediction by it.
+     * @param dt seconds this input stays in effect (the frame time)
+     */
+    public void applyInput(int seq, float vx, float vy, float dt) {
+        if (seq <= 0) return;
+        int i = seq % CAPACITY;
+        seqs[i] = seq;
+        inVx[i] = vx;
+        inVy[i] = vy;
+        inDt[i] = dt;
+        newestSeq = seq;
+        if (hasState) {
+            x = PlayerMovement.moveX(x, vx, dt);
+            y = PlayerMovement.moveY(y, vy, dt);
+        }
+    }
+
+    /**
+     * Rebases the prediction on authoritative state that includes every input up to ackSeq.
+     */
+    public void reconcile(float serverX, float serverY, int ackSeq) {
+        if (ackSeq < ackedSeq) return; // older than what we already reconciled against
+        ackedSeq = ackSeq;
+        float px = serverX, py = serverY;
+        for (int s = Math.max(ackSeq + 1, newestSeq - CAPACITY + 1); s <= newestSeq; s++) {
+            int i = s % CAPACITY;
+            if (seqs[i] != s) continue;
+            px = PlayerMovement.moveX(px, inVx[i], inDt[i]);
+            py = PlayerMovement.moveY(py, inVy[i], inDt[i]);
+        }
+        if (hasState) {
+            errorX += x - px;
+            errorY += y - py;
+            if (errorX * errorX + errorY * errorY > SNAP_DISTANCE * SNAP_DISTANCE) {
+                errorX = 0;
+                errorY = 0;
+            }
+        }
+        x = px;
+        y = py;
+        hasState = true;
+    }
+
+    /**
+     * Decays the correction offset; call once per frame.
+     */
+    public void update(float dt) {
+        float k = (float) Math.exp(-CORRECTION_RATE * dt);
+        errorX *= k;
+        errorY *= k;
+    }
+
+    public boolean hasState() {
+        return hasState;
+    }
+
+    /**
+     * Position to draw the local player at.
+     */
+    public float getX() {
+        return x + errorX;
+    }
+
+    public float getY() {
+        return y + errorY;
+    }
+
+    public int getAckedSeq() {
+        return ackedSeq;
+    }
+
+    public int getPendingInputs() {
+        return Math.max(0, Math.min(CAPACITY, newestSeq - ackedSeq));
+    }
+}
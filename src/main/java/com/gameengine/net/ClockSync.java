@@ -0,0 +1,108 @@
+package com.gameengine.net;
+
+/**
+ * Client estimate of round-trip time and of the offset between the server clock and the local clock,
+ * from ping/pong exchanges (NTP-style): a ping carries the local send time t0, the pong the server time s,
+ * and with the pong arriving at t3 the offset is s - (t0 + t3) / 2 assuming symmetric paths.
+ * The offset is taken from the lowest-RTT exchange among the last WINDOW ones (the least queued, so the
+ * most accurate), and slews toward a new estimate instead of jumping. RTT is smoothed like TCP's SRTT.
+ * Each ping also echoes the last pong's server time and how long ago it arrived, so the server can
+ * measure RTT from its side without pings of its own.
+ * Written by the client IO thread, read by the game thread.
+ */
+public class ClockSync {
+    private static final int WINDOW = 8;
+    private static final int FAST_PINGS = 5;
+    private static final long FAST_INTERVAL_MS = 100;
+    private static final long PING_INTERVAL_MS = 1000;
+    // offset corrections below this slew by at most SLEW_MS per pong; bigger ones step
+    private static final long STEP_THRESHOLD_MS = 100;
+    private static final long SLEW_MS = 5;
+
+    private final long[] rtts = new long[WINDOW];
+    private final long[] offsets = new long[WINDOW];
+    private int count;
+    private int next;
+    private boolean synced;
+    private boolean provisional;
+    private volatile long offsetMs;
+    private volatile float rttMs = -1;
+    private long pingsSent;
+    private long lastPingMillis = Long.MIN_VALUE / 2;
+    private long lastPongServerMillis;
+    private long lastPongLocalMillis;
+
+    /**
+     * True when a ping should go out now; the first few go out quickly, then once a second.
+     */
+    public synchronized boolean pingDue(long localMillis) {
+        long interval = pingsSent < FAST_PINGS ? FAST_INTERVAL_MS : PING_INTERVAL_MS;
+        if (localMillis - lastPingMillis < interval) return false;
+        lastPingMillis = localMillis;
+        pingsSent++;
+        return true;
+    }
+
+    public synchronized void onPong(long clientSendMillis, long serverMillis, long clientReceiveMillis) {
+        long rtt = clientReceiveMillis - clientSendMillis;
+        if (rtt < 0) return;
+        lastPongServerMillis = serverMillis;
+        lastPongLocalMillis = clientReceiveMillis;
+        rtts[next] = rtt;
+        offsets[next] = serverMillis - (clientSendMillis + clientReceiveMillis) / 2;
+        next = (next + 1) % WINDOW;
+        if (count < WINDOW) count++;
+        int best = 0;
+        for (int i = 1; i < count; i++) {
+            if (rtts[i] < rtts[best]) best = i;
+        }
+        long estimate = offsets[best];
+        long diff = estimate - offsetMs;
+        if (!synced || Math.abs(diff) > STEP_THRESHOLD_MS) offsetMs = estimate;
+        else offsetMs += Math.max(-SLEW_MS, Math.min(SLEW_MS, diff));
+        synced = true;
+        rttMs = rttMs < 0 ? rtt : rttMs + (rtt - rttMs) / 8f;
+    }
+
+    /**
+     * Provisional offset from a keyframe's server time until the first pong (assumes zero transit).
+     */
+    public synchronized void observeServerTime(long serverMillis, long localMillis) {
+        if (synced || provisional) return;
+        offsetMs = serverMillis - localMillis;
+        provisional = true;
+    }
+
+    public long toServerTime(long localMillis) {
+        return localMillis + offsetMs;
+    }
+
+    public boolean isSynced() {
+        return synced;
+    }
+
+    /**
+     * Smoothed round-trip time in milliseconds, or -1 before the first pong.
+     */
+    public float getRttMs() {
+        return rttMs;
+    }
+
+    public long getOffsetMs() {
+        return offsetMs;
+    }
+
+    /**
+     * Server time of the last pong (0 if none), echoed in the next ping.
+     */
+    public synchronized long getEchoServerMillis() {
+        return lastPongServerMillis;
+    }
+
+    /**
+     * How long the last pong has been held before being echoed.
+     */
+    public synchronized long getEchoHoldMillis(long localMillis) {
+        return lastPongServerMillis == 0 ? 0 : Math.max(0, localMillis - lastPongLocalMillis);
+    }
+}
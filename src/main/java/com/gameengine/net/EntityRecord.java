@@ -0,0 +1,51 @@
+package com.gameengine.net;
+
+/**
+ * Server-side, immutable view of one entity as it was sent in a snapshot.
+ * Positions are kept quantized so delta comparison matches what the client actually sees.
+ */
+public final class EntityRecord {
+    public final int id;
+    public final char kind;   // NetState.KIND_PLAYER or NetState.KIND_BULLET
+    public final float x;
+    public final float y;
+    public final int qx;
+    public final int qy;
+    public final float vx;    // units per second, for client extrapolation
+    public final float vy;
+    public final int qvx;
+    public final int qvy;
+    public final int hp;      // players
+    public final int inputSeq; // players: newest input the server applied
+    public final int owner;   // bullets
+    public final String name; // players
+
+    public EntityRecord(int id, char kind, float x, float y, float vx, float vy, int hp, int inputSeq, int owner, String name) {
+        this.id = id;
+        this.kind = kind;
+        this.x = x;
+        this.y = y;
+        this.qx = WireProtocol.quantize(x);
+        this.qy = WireProtocol.quantize(y);
+        this.vx = vx;
+        this.vy = vy;
+        this.qvx = WireProtocol.quantizeVelocity(vx);
+        this.qvy = WireProtocol.quantizeVelocity(vy);
+        this.hp = hp;
+        this.inputSeq = inputSeq;
+        this.owner = owner;
+        this.name = name == null ? "" : name;
+    }
+
+    public static EntityRecord player(int id, float x, float y, float vx, float vy, int hp, int inputSeq, String name) {
+        return new EntityRecord(id, NetState.KIND_PLAYER, x, y, vx, vy, hp, inputSeq, 0, name);
+    }
+
+    public static EntityRecord bullet(int id, float x, float y, float vx, float vy, int owner) {
+        return new EntityRecord(id, NetState.KIND_BULLET, x, y, vx, vy, 0, 0, owner, null);
+    }
+
+    public boolean isPlayer() {
+        return kind == NetState.KIND_PLAYER;
+    }
+}
@@ -0,0 +1,234 @@
+package com.gameengine.net;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Per-connection inbound buffer for the text and binary protocols. Bytes are read into one reused direct
+ * buffer, line boundaries are found by scanning bytes, and numeric fields are parsed in place, so a
+ * steady-state read allocates nothing. The buffer only grows when a single line or frame doesn't fit.
+ *
+ * Usage: read(channel); then while there is a complete line or frame, consume it from buffer()
+ * (positions are absolute indices into buffer()); finally compact().
+ */
+public class FrameReader {
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+    };
+
+    private final int maxCapacity;
+    private ByteBuffer buf;
+    // bytes after position() already known to contain no '\n'
+    private int scanned;
+
+    public FrameReader(int initialCapacity, int maxCapacity) {
+        this.maxCapacity = Math.max(initialCapacity, maxCapacity);
+        this.buf = ByteBuffer.allocateDirect(initialCapacity);
+    }
+
+    /**
+     * Reads once from the channel and switches the buffer to read mode.
+     * @return bytes read, or -1 at end of stream
+     */
+    public int read(ReadableByteChannel channel) throws IOException {
+        if (!buf.hasRemaining()) grow();
+        int n = channel.read(buf);
+        buf.flip();
+        return n;
+    }
+
+    /**
+     * Unread bytes in read mode; consumers advance its position.
+     */
+    public ByteBuffer buffer() {
+        return buf;
+    }
+
+    /**
+     * Index of the '\n' ending the line at position(), or -1 if the line is incomplete.
+     * Bytes scanned without success are not scanned again after the next read.
+     */
+    public int nextLineEnd() {
+        int from = buf.position() + scanned;
+        int nl = indexOf(buf, from, buf.limit(), (byte) '\n');
+        scanned = nl < 0 ? buf.limit() - buf.position() : 0;
+        return nl;
+    }
+
+    /**
+     * Moves unread bytes to the front and switches back to write mode.
+     */
+    public void compact() {
+        buf.compact();
+    }
+
+    private void grow() throws IOException {
+        if (buf.capacity() >= maxCapacity) {
+            throw new IOException("inbound message exceeds " + maxCapacity + " bytes");
+        }
+        ByteBuffer bigger = ByteBuffer.allocateDirect(Math.min(maxCapacity, buf.capacity() * 2));
+        buf.flip();
+        bigger.put(buf);
+        buf = bigger;
+    }
+
+    // ---- byte-level helpers; ranges are [from, to) absolute indices ----
+
+    public static int indexOf(ByteBuffer b, int from, int to, byte value) {
+        for (int i = from; i < to; i++) {
+            if (b.get(i) == value) return i;
+        }
+        return -1;
+    }
+
+    public static boolean startsWith(ByteBuffer b, int from, int to, byte[] prefix) {
+        if (to - from < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (b.get(from + i) != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Index just past the first occurrence of needle, or -1.
+     */
+    public static int find(ByteBuffer b, int from, int to, byte[] needle) {
+        for (int i = from; i + needle.length <= to; i++) {
+            if (startsWith(b, i, to, needle)) return i + needle.length;
+        }
+        return -1;
+    }
+
+    /**
+     * Index of the first byte in [from, to) that can't be part of a number (or to).
+     */
+    public static int numberEnd(ByteBuffer b, int from, int to) {
+        int i = from;
+        while (i < to) {
+            byte c = b.get(i);
+            if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') i++;
+            else break;
+        }
+        return i;
+    }
+
+    public static int parseInt(ByteBuffer b, int from, int to) {
+        int i = skipSpaces(b, from, to);
+        boolean neg = false;
+        if (i < to && (b.get(i) == '-' || b.get(i) == '+')) neg = b.get(i++) == '-';
+        if (i >= to) throw new NumberFormatException("empty number");
+        long v = 0;
+        for (; i < to; i++) {
+            byte c = b.get(i);
+            if (c < '0' || c > '9') break;
+            v = v * 10 + (c - '0');
+            if (v > Integer.MAX_VALUE + 1L) throw new NumberFormatException("int overflow");
+        }
+        return (int) (neg ? -v : v);
+    }
+
+    public static long parseLong(ByteBuffer b, int from, int to) {
+        int i = skipSpaces(b, from, to);
+        boolean neg = false;
+        if (i < to && (b.get(i) == '-' || b.get(i) == '+')) neg = b.get(i++) == '-';
+        if (i >= to) throw new NumberFormatException("empty number");
+        long v = 0;
+        for (int digits = 0; i < to; i++, digits++) {
+            byte c = b.get(i);
+            if (c < '0' || c > '9') break;
+            if (digits == 18) throw new NumberFormatException("long overflow");
+            v = v * 10 + (c - '0');
+        }
+        return neg ? -v : v;
+    }
+
+    /**
+     * Parses decimal text as written by Java's float/double toString (optional sign, fraction and exponent).
+     * Non-finite or unusual text falls back to Double.parseDouble.
+     */
+    public static double parseDouble(ByteBuffer b, int from, int to) {
+        int i = skipSpaces(b, from, to);
+        int end = to;
+        while (end > i && b.get(end - 1) == ' ') end--;
+        boolean neg = false;
+        if (i < end && (b.get(i) == '-' || b.get(i) == '+')) neg = b.get(i++) == '-';
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean any = false;
+        boolean dot = false;
+        for (; i < end; i++) {
+            byte c = b.get(i);
+            if (c >= '0' && c <= '9') {
+                any = true;
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0) digits++;
+                    if (dot) scale--;
+                } else if (!dot) {
+                    scale++;
+                }
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+        }
+        if (i < end && (b.get(i) == 'e' || b.get(i) == 'E')) {
+            int exp = parseInt(b, i + 1, end);
+            scale += exp;
+            i = numberEnd(b, i + 1, end);
+        }
+        if (!any || i != end || scale < -POW10.length + 1 - 18 || scale > POW10.length - 1) {
+            return slowParse(b, from, to);
+        }
+        double v = mantissa;
+        if (scale < 0) {
+            int s = -scale;
+            if (s >= POW10.length) {
+                v /= POW10[POW10.length - 1];
+                s -= POW10.length - 1;
+            }
+            v /= POW10[s];
+        } else {
+            v *= POW10[scale];
+        }
+        return neg ? -v : v;
+    }
+
+    public static float parseFloat(ByteBuffer b, int from, int to) {
+        return (float) parseDouble(b, from, to);
+    }
+
+    /**
+     * Decodes UTF-8 text; allocates, so only for rare fields such as names.
+     */
+    public static String string(ByteBuffer b, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; i++) bytes[i] = b.get(from + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * True if the bytes are exactly the ASCII text of s (lets callers skip decoding unchanged names).
+     */
+    public static boolean equalsAscii(ByteBuffer b, int from, int to, String s) {
+        if (s == null || s.length() != to - from) return false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80 || b.get(from + i) != (byte) c) return false;
+        }
+        return true;
+    }
+
+    private static int skipSpaces(ByteBuffer b, int from, int to) {
+        while (from < to && b.get(from) == ' ') from++;
+        return from;
+    }
+
+    private static double slowParse(ByteBuffer b, int from, int to) {
+        return Double.parseDouble(string(b, from, to).trim());
+    }
+}
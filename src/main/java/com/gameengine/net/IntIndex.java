@@ -0,0 +1,66 @@
+package com.gameengine.net;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from int keys (entity ids) to int values (table slots), without boxing.
+ * clear() keeps the arrays, so refilling it every frame allocates nothing once it has grown.
+ */
+final class IntIndex {
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    IntIndex(int expected) {
+        int cap = Integer.highestOneBit(Math.max(8, expected * 2 - 1)) << 1;
+        keys = new int[cap];
+        values = new int[cap];
+        mask = cap - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    void clear() {
+        if (size == 0) return;
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    void put(int key, int value) {
+        if ((size + 1) * 2 > keys.length) grow();
+        int i = slot(key);
+        if (keys[i] == EMPTY) {
+            keys[i] = key;
+            size++;
+        }
+        values[i] = value;
+    }
+
+    /**
+     * Value for key, or -1 if absent.
+     */
+    int get(int key) {
+        int i = slot(key);
+        return keys[i] == EMPTY ? -1 : values[i];
+    }
+
+    private int slot(int key) {
+        int i = (key * 0x9E3779B9) >>> 16 & mask;
+        while (keys[i] != EMPTY && keys[i] != key) i = (i + 1) & mask;
+        return i;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys, oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[keys.length];
+        mask = keys.length - 1;
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) put(oldKeys[i], oldValues[i]);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.gameengine.net;
+
+import com.gameengine.core.SpatialHash;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Server-side interest management: the world's entities are indexed once per broadcast in a uniform grid,
+ * then each client gets only the entities within {@code radius} of its own player.
+ * A client's own player and its own bullets are always relevant, wherever they are.
+ */
+public class InterestGrid {
+    private final float radius;
+    private final float radiusSq;
+    private final SpatialHash grid;
+    private final List<EntityRecord> records = new ArrayList<>();
+    private final Map<Integer, Integer> playerIndex = new HashMap<>();
+    private final Map<Integer, List<Integer>> bulletsByOwner = new HashMap<>();
+    private final SpatialHash.Visitor collector = this::collect;
+    // per-query scratch: matched indices, and a stamp per record so nothing is added twice
+    private int[] hits = new int[64];
+    private int hitCount;
+    private int[] marks = new int[64];
+    private int stamp;
+    private float qx, qy;
+
+    public InterestGrid(float radius) {
+        if (radius <= 0) throw new IllegalArgumentException("radius must be > 0");
+        this.radius = radius;
+        this.radiusSq = radius * radius;
+        this.grid = new SpatialHash(radius);
+    }
+
+    /**
+     * Re-indexes the world; records must stay unchanged until the next rebuild.
+     */
+    public void rebuild(Map<Integer, EntityRecord> world) {
+        records.clear();
+        playerIndex.clear();
+        bulletsByOwner.clear();
+        grid.clear(world.size());
+        for (EntityRecord r : world.values()) {
+            int i = records.size();
+            records.add(r);
+            grid.insert(r.x, r.y, i);
+            if (r.isPlayer()) {
+                playerIndex.put(r.id, i);
+            } else {
+                bulletsByOwner.computeIfAbsent(r.owner, k -> new ArrayList<>()).add(i);
+            }
+        }
+        if (marks.length < records.size()) marks = new int[records.size() * 2];
+        Arrays.fill(marks, 0);
+        stamp = 0;
+    }
+
+    /**
+     * Entities relevant to the given player, in world order. Empty if the player isn't in the world.
+     */
+    public Map<Integer, EntityRecord> relevantTo(int playerId) {
+        Integer self = playerIndex.get(playerId);
+        if (self == null) return new LinkedHashMap<>();
+        stamp++;
+        hitCount = 0;
+        add(self);
+        List<Integer> own = bulletsByOwner.get(playerId);
+        if (own != null) {
+            for (int i = 0; i < own.size(); i++) add(own.get(i));
+        }
+        EntityRecord me = records.get(self);
+        qx = me.x;
+        qy = me.y;
+        grid.forEachInRect(qx - radius, qy - radius, qx + radius, qy + radius, collector);
+        Arrays.sort(hits, 0, hitCount);
+        Map<Integer, EntityRecord> out = new LinkedHashMap<>(Math.max(16, hitCount * 2));
+        for (int i = 0; i < hitCount; i++) {
+            EntityRecord r = records.get(hits[i]);
+            out.put(r.id, r);
+        }
+        return out;
+    }
+
+    private void collect(int item) {
+        if (marks[item] == stamp) return;
+        EntityRecord r = records.get(item);
+        float dx = r.x - qx, dy = r.y - qy;
+        if (dx * dx + dy * dy <= radiusSq) add(item);
+    }
+
+    private void add(int item) {
+        if (marks[item] == stamp) return;
+        marks[item] = stamp;
+        if (hitCount == hits.length) hits = Arrays.copyOf(hits, hitCount * 2);
+        hits[hitCount++] = item;
+    }
+
+    public float getRadius() {
+        return radius;
+    }
+
+    public int size() {
+        return records.size();
+    }
+}
@@ -0,0 +1,36 @@
+package com.gameengine.net;
+
+/**
+ * Client side of a connection to NioServer, run on its own thread; the game thread sends input and reads
+ * ids and names. Implemented over TCP (NioClient) and UDP (UdpClient).
+ */
+public interface NetClient extends Runnable {
+    /**
+     * Sends one input sample; the server echoes the newest seq it applied in each player's snapshot record.
+     * @return the input's sequence number, or 0 if it couldn't be sent
+     */
+    int sendInput(float vx, float vy, boolean fire, float ax, float ay);
+
+    void stop();
+
+    /**
+     * Player id assigned by the server's welcome, or -1 before it arrives.
+     */
+    int getOwnId();
+
+    String getName(int id);
+
+    /**
+     * Smoothed round-trip time to the server in milliseconds, or -1 before the first pong.
+     */
+    float getRttMs();
+
+    /**
+     * Client for the transport chosen by NET_TRANSPORT ("udp", otherwise TCP).
+     */
+    static NetClient create(String host, int port, NetworkBuffer buffer) {
+        String transport = System.getenv("NET_TRANSPORT");
+        if (transport != null && transport.equalsIgnoreCase("udp")) return new UdpClient(host, port, buffer);
+        return new NioClient(host, port, buffer);
+    }
+}
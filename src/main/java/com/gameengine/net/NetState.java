@@ -15,9 +15,15 @@ public class NetState {
         public char kind; // 'p' player, 'b' bullet
         public int hp;    // for player
         public int owner; // for bullet
+        public int inputSeq; // for player: newest input the server applied (0 if unknown)
+        public float vx, vy; // units per second as of the snapshot, for extrapolation
         public EntitySnapshot(int id, float x, float y, char kind, int hp, int owner) {
             this.id = id; this.x = x; this.y = y; this.kind = kind; this.hp = hp; this.owner = owner;
         }
+        public EntitySnapshot(int id, float x, float y, char kind, int hp, int owner, int inputSeq) {
+            this(id, x, y, kind, hp, owner);
+            this.inputSeq = inputSeq;
+        }
     }
 
     private long serverTimeMillis;
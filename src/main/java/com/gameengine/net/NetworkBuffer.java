@@ -4,6 +4,26 @@ import java.util.*;
 
 /**
  * Client-side buffer for server keyframes with simple linear interpolation.
+ *
+ * The playout delay adapts to the link: every keyframe's transit (arrival time minus server time) is kept
+ * over the last JITTER_WINDOW frames, and the target delay is the p99 transit plus one send interval, i.e.
+ * late enough that the next keyframe has almost always arrived. The delay moves toward the target by
+ * time-stretching (playback runs at most MAX_STRETCH faster or slower) instead of jumping, so motion stays
+ * continuous. setDelayMs switches to a fixed delay.
+ *
+ * When playback runs past the newest keyframe (a late or lost frame), entities are dead-reckoned from the
+ * newest keyframe with the velocities the server sends, for at most NET_EXTRAPOLATE_MS (default 250, 0 holds
+ * the last state instead). When the real keyframe lands, the gap between the extrapolated and the real
+ * position becomes a per-entity offset that decays away, so entities don't jump back.
+ *
+ * Keyframe times are server clock times. Sampling and arrival times are converted from the local clock with
+ * the ClockSync offset the client measures by ping/pong, so clock skew between machines doesn't matter.
+ *
+ * Threads: one IO thread push()es; everything else (sample, latestEntity, the getters) belongs to the game
+ * thread. push copies the keyframe into a pooled primitive Frame and hands it over through a lock-free queue;
+ * the game thread moves handed-over frames into a fixed ring ordered by time, binary-searches it, and
+ * interpolates into one of two reusable Samples. A sample is computed once per distinct time and stays valid
+ * until the second-next sample call.
  */
 public class NetworkBuffer {
     public static class Keyframe {
@@ -14,49 +34,433 @@ public class NetworkBuffer {
         }
     }
 
-    private final Deque<Keyframe> frames = new ArrayDeque<>();
-    private int delayMs = 120;
+    /**
+     * Interpolated entities at one time. Entries are pooled and overwritten by later samples: read them,
+     * don't keep them.
+     */
+    public static final class Sample {
+        private NetState.EntitySnapshot[] entities = new NetState.EntitySnapshot[0];
+        // position before the correction offset, and the offset itself
+        private float[] rawX = new float[0], rawY = new float[0];
+        private float[] errX = new float[0], errY = new float[0];
+        private int count;
+        private final IntIndex index = new IntIndex(64);
+
+        public int size() { return count; }
+
+        public NetState.EntitySnapshot get(int i) { return entities[i]; }
 
-    public synchronized void setDelayMs(int delayMs) { this.delayMs = delayMs; }
+        /**
+         * Entity with this id, or null.
+         */
+        public NetState.EntitySnapshot find(int id) {
+            int i = index.get(id);
+            return i < 0 ? null : entities[i];
+        }
+
+        private void clear() {
+            count = 0;
+            index.clear();
+        }
 
-    public synchronized void push(Keyframe kf) {
-        frames.addLast(kf);
-        while (frames.size() > 120) frames.removeFirst();
+        private NetState.EntitySnapshot add(int id) {
+            if (count == entities.length) {
+                int cap = Math.max(16, count * 2);
+                entities = Arrays.copyOf(entities, cap);
+                rawX = Arrays.copyOf(rawX, cap); rawY = Arrays.copyOf(rawY, cap);
+                errX = Arrays.copyOf(errX, cap); errY = Arrays.copyOf(errY, cap);
+                for (int i = count; i < entities.length; i++) entities[i] = new NetState.EntitySnapshot(0, 0, 0, NetState.KIND_PLAYER, 0, 0);
+            }
+            index.put(id, count);
+            errX[count] = 0;
+            errY[count] = 0;
+            NetState.EntitySnapshot e = entities[count++];
+            e.id = id;
+            return e;
+        }
     }
 
     /**
-     * Interpolated sample keyed by id. Linear on x/y if both frames present.
+     * One keyframe as parallel primitive arrays plus an id index; pooled between the two threads.
      */
-    public synchronized Map<Integer, NetState.EntitySnapshot> sampleMap(long nowMillis) {
-        long target = nowMillis - delayMs;
-        Keyframe a = null, b = null;
-        for (Keyframe f : frames) {
-            if (f.tMillis <= target) a = f; else { b = f; break; }
+    private static final class Frame {
+        long tMillis;
+        long arrivalMillis; // server time
+        int count;
+        int[] ids = new int[16];
+        float[] xs = new float[16];
+        float[] ys = new float[16];
+        float[] vxs = new float[16];
+        float[] vys = new float[16];
+        char[] kinds = new char[16];
+        int[] hps = new int[16];
+        int[] owners = new int[16];
+        int[] inputSeqs = new int[16];
+        final IntIndex index = new IntIndex(16);
+
+        void load(Keyframe kf, long arrival) {
+            tMillis = kf.tMillis;
+            arrivalMillis = arrival;
+            int n = kf.entities.size();
+            if (ids.length < n) {
+                int cap = Math.max(n, ids.length * 2);
+                ids = new int[cap]; xs = new float[cap]; ys = new float[cap]; kinds = new char[cap];
+                vxs = new float[cap]; vys = new float[cap];
+                hps = new int[cap]; owners = new int[cap]; inputSeqs = new int[cap];
+            }
+            index.clear();
+            int i = 0;
+            for (NetState.EntitySnapshot e : kf.entities.values()) {
+                ids[i] = e.id; xs[i] = e.x; ys[i] = e.y; vxs[i] = e.vx; vys[i] = e.vy; kinds[i] = e.kind;
+                hps[i] = e.hp; owners[i] = e.owner; inputSeqs[i] = e.inputSeq;
+                index.put(e.id, i);
+                i++;
+            }
+            count = i;
+        }
+
+        void copyTo(int i, NetState.EntitySnapshot e) {
+            e.x = xs[i]; e.y = ys[i]; e.vx = vxs[i]; e.vy = vys[i]; e.kind = kinds[i]; e.hp = hps[i]; e.owner = owners[i]; e.inputSeq = inputSeqs[i];
         }
-        if (a == null) a = frames.peekFirst();
-        if (b == null) b = frames.peekLast();
-        if (a == null) return Collections.emptyMap();
-        if (b == null || a == b) return new HashMap<>(a.entities);
+    }
+
+    private static final int CAPACITY = 128;   // ring of frames, ~6s at 20Hz
+    private static final int HANDOFF = 64;     // frames the IO thread may run ahead of the game thread
+    private static final int INITIAL_DELAY_MS = 120;
+    private static final float MIN_DELAY_MS = 10f;
+    private static final float MAX_DELAY_MS = 1000f;
+    private static final int JITTER_WINDOW = 128;
+    private static final int MIN_SAMPLES = 8;
+    private static final float MAX_STRETCH = 0.1f;
+    private static final float SAFETY_MS = 5f;
+    private static final int DEFAULT_EXTRAPOLATE_MS = 250;
+    // extrapolation error decays by e^-rate per second; larger errors (respawns) snap
+    private static final float CORRECTION_RATE = 10f;
+    private static final float SNAP_DISTANCE = 100f;
+
+    private final ClockSync clock = new ClockSync();
+    // IO thread -> game thread, and evicted frames back for reuse
+    private final SpscQueue<Frame> handoff = new SpscQueue<>(HANDOFF);
+    private final SpscQueue<Frame> recycle = new SpscQueue<>(HANDOFF);
+    private volatile long dropped;
+
+    // game thread only below
+    private final Frame[] ring = new Frame[CAPACITY];
+    private int ringStart;
+    private int ringCount;
+    private long framesReceived;
+    private final Sample[] samples = { new Sample(), new Sample() };
+    private int current;
+    private long cachedNow = Long.MIN_VALUE;
+    private long cachedFrames = -1;
+    private final NetState.EntitySnapshot latest = new NetState.EntitySnapshot(0, 0, 0, NetState.KIND_PLAYER, 0, 0);
+
+    private boolean adaptive = true;
+    private float delayMs = INITIAL_DELAY_MS;
+    private float targetDelayMs = INITIAL_DELAY_MS;
+    // transit samples (arrival - server time, ms) in a ring, and a scratch copy for the percentile
+    private final long[] transits = new long[JITTER_WINDOW];
+    private final long[] sorted = new long[JITTER_WINDOW];
+    private int transitCount;
+    private int transitNext;
+    private float jitterMs;
+    private float sendIntervalMs = 50f;
+    private long lastSampleMillis = -1;
+    private boolean starved;
+    private long underruns;
+    private int depth;
+    private int maxExtrapolateMs = DEFAULT_EXTRAPOLATE_MS;
+    // how the previous sample was made: extrapolated aheadMs past the keyframe at basisMillis
+    private boolean extrapolated;
+    private long basisMillis;
+    private float aheadMs;
+
+    public NetworkBuffer() {
+        String env = System.getenv("NET_EXTRAPOLATE_MS");
+        if (env != null) {
+            try { maxExtrapolateMs = Math.max(0, Integer.parseInt(env.trim())); } catch (NumberFormatException ignored) {}
+        }
+    }
+
+    /**
+     * Fixes the playout delay, turning adaptation off.
+     */
+    public void setDelayMs(int delayMs) {
+        this.adaptive = false;
+        this.delayMs = delayMs;
+        this.targetDelayMs = delayMs;
+    }
+
+    public void setAdaptive(boolean adaptive) { this.adaptive = adaptive; }
+
+    /**
+     * Longest time to dead-reckon past the newest keyframe; 0 holds the last state.
+     */
+    public void setMaxExtrapolateMs(int ms) { this.maxExtrapolateMs = Math.max(0, ms); }
+
+    /**
+     * Server clock estimate used to place local time on the keyframe timeline; fed by the client's pongs.
+     */
+    public ClockSync getClock() { return clock; }
+
+    /**
+     * Hands a keyframe to the game thread (IO thread only). If the game thread hasn't drained HANDOFF frames,
+     * the keyframe is dropped.
+     */
+    public void push(Keyframe kf) {
+        long local = System.currentTimeMillis();
+        clock.observeServerTime(kf.tMillis, local);
+        Frame f = recycle.poll();
+        if (f == null) f = new Frame();
+        f.load(kf, clock.toServerTime(local));
+        if (!handoff.offer(f)) dropped++;
+    }
+
+    /**
+     * Moves handed-over frames into the ring and updates the delay target from their arrival times.
+     */
+    private void drain() {
+        Frame f;
+        while ((f = handoff.poll()) != null) {
+            Frame last = ringCount == 0 ? null : frame(ringCount - 1);
+            if (last != null && f.tMillis < last.tMillis) {
+                // server time went backwards (new server): start over
+                while (ringCount > 0) evictOldest();
+                last = null;
+            }
+            if (last != null && f.tMillis > last.tMillis) {
+                // smoothed server send interval
+                sendIntervalMs += ((f.tMillis - last.tMillis) - sendIntervalMs) * 0.1f;
+            }
+            transits[transitNext] = f.arrivalMillis - f.tMillis;
+            transitNext = (transitNext + 1) % JITTER_WINDOW;
+            if (transitCount < JITTER_WINDOW) transitCount++;
+            updateTarget();
+            if (ringCount == CAPACITY) evictOldest();
+            ring[(ringStart + ringCount) % CAPACITY] = f;
+            ringCount++;
+            framesReceived++;
+        }
+    }
+
+    private Frame frame(int i) {
+        return ring[(ringStart + i) % CAPACITY];
+    }
+
+    private void evictOldest() {
+        Frame old = ring[ringStart];
+        ring[ringStart] = null;
+        ringStart = (ringStart + 1) % CAPACITY;
+        ringCount--;
+        recycle.offer(old); // a full recycle queue just lets the frame go
+    }
+
+    private void updateTarget() {
+        if (transitCount < MIN_SAMPLES) return;
+        System.arraycopy(transits, 0, sorted, 0, transitCount);
+        Arrays.sort(sorted, 0, transitCount);
+        long min = sorted[0];
+        long p99 = sorted[Math.min(transitCount - 1, (int) Math.ceil(transitCount * 0.99) - 1)];
+        jitterMs = p99 - min;
+        if (!adaptive) return;
+        targetDelayMs = Math.max(MIN_DELAY_MS, Math.min(MAX_DELAY_MS, p99 + sendIntervalMs + SAFETY_MS));
+    }
+
+    /**
+     * Moves the delay toward the target by at most MAX_STRETCH of the time since the last sample.
+     */
+    private void stretch(long nowMillis) {
+        if (lastSampleMillis >= 0 && nowMillis > lastSampleMillis) {
+            float maxStep = (nowMillis - lastSampleMillis) * MAX_STRETCH;
+            float diff = targetDelayMs - delayMs;
+            delayMs += Math.max(-maxStep, Math.min(maxStep, diff));
+        }
+        lastSampleMillis = nowMillis;
+    }
+
+    /**
+     * Index of the last frame with time <= t, or -1 if every frame is newer.
+     */
+    private int floorIndex(long t) {
+        int lo = 0, hi = ringCount - 1, found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (frame(mid).tMillis <= t) { found = mid; lo = mid + 1; } else hi = mid - 1;
+        }
+        return found;
+    }
+
+    /**
+     * Keyframes received so far; changes when a new one becomes visible to latestEntity.
+     */
+    public long getFramesReceived() {
+        drain();
+        return framesReceived;
+    }
+
+    /**
+     * The entity as of the newest keyframe, without delay or interpolation (for reconciling the predicted
+     * own player), or null. The returned object is reused by the next call.
+     */
+    public NetState.EntitySnapshot latestEntity(int id) {
+        drain();
+        if (ringCount == 0) return null;
+        Frame f = frame(ringCount - 1);
+        int i = f.index.get(id);
+        if (i < 0) return null;
+        latest.id = id;
+        f.copyTo(i, latest);
+        return latest;
+    }
+
+    /**
+     * Interpolated sample at a local time: linear on x/y for entities in both surrounding frames,
+     * dead-reckoned from the newest frame when the time is past it.
+     * Calls with the same time and no new keyframe return the cached sample.
+     * @param nowMillis local wall-clock time (System.currentTimeMillis())
+     */
+    public Sample sample(long nowMillis) {
+        drain();
+        if (nowMillis == cachedNow && framesReceived == cachedFrames) return samples[current];
+        cachedNow = nowMillis;
+        cachedFrames = framesReceived;
+        Sample prev = samples[current];
+        current ^= 1;
+        Sample out = samples[current];
+        out.clear();
+        float decay = lastSampleMillis >= 0 && nowMillis > lastSampleMillis
+                ? (float) Math.exp(-CORRECTION_RATE * (nowMillis - lastSampleMillis) / 1000f) : 1f;
+        stretch(nowMillis);
+        long target = clock.toServerTime(nowMillis) - Math.round(delayMs);
+        int ia = floorIndex(target);
+        depth = ringCount - 1 - ia;
+        // playing past the newest keyframe: count each stall once
+        boolean starving = ringCount > 0 && ia == ringCount - 1;
+        if (starving && !starved) underruns++;
+        starved = starving;
+        if (ringCount == 0) return out;
+        Frame a = frame(Math.max(0, ia));
+        Frame b = ia >= 0 && ia + 1 < ringCount ? frame(ia + 1) : a;
         long dt = b.tMillis - a.tMillis;
         float alpha = dt <= 0 ? 1f : (float)(target - a.tMillis) / (float)dt;
-        Map<Integer, NetState.EntitySnapshot> result = new HashMap<>();
+        float ahead = starving ? Math.min(target - a.tMillis, maxExtrapolateMs) : 0f;
+        // the previous sample was dead-reckoned from another basis than this one: measure the jump
+        boolean rebased = extrapolated && (ahead <= 0 || a.tMillis != basisMillis);
+        float oldAhead = Math.min(target - basisMillis, maxExtrapolateMs);
         // Interpolate common ids; take from nearer frame for others
-        for (Map.Entry<Integer, NetState.EntitySnapshot> e : a.entities.entrySet()) {
-            int id = e.getKey();
-            NetState.EntitySnapshot ea = e.getValue();
-            NetState.EntitySnapshot eb = b.entities.get(id);
-            if (eb != null) {
-                float x = ea.x + (eb.x - ea.x) * alpha;
-                float y = ea.y + (eb.y - ea.y) * alpha;
-                result.put(id, new NetState.EntitySnapshot(id, x, y, ea.kind, ea.hp, ea.owner));
-            } else {
-                result.put(id, ea);
-            }
-        }
-        for (Map.Entry<Integer, NetState.EntitySnapshot> e : b.entities.entrySet()) {
-            int id = e.getKey();
-            if (!result.containsKey(id)) result.put(id, e.getValue());
+        for (int i = 0; i < a.count; i++) {
+            NetState.EntitySnapshot e = out.add(a.ids[i]);
+            a.copyTo(i, e);
+            int j = b == a ? -1 : b.index.get(a.ids[i]);
+            float x = e.x, y = e.y;
+            if (j >= 0) {
+                x = a.xs[i] + (b.xs[j] - a.xs[i]) * alpha;
+                y = a.ys[i] + (b.ys[j] - a.ys[i]) * alpha;
+            } else if (ahead > 0) {
+                x += e.vx * ahead / 1000f;
+                y += e.vy * ahead / 1000f;
+                if (e.kind == NetState.KIND_PLAYER) {
+                    x = PlayerMovement.clampX(x);
+                    y = PlayerMovement.clampY(y);
+                }
+            }
+            correct(prev, out, out.count - 1, x, y, decay, rebased ? oldAhead - aheadMs : Float.NaN);
+        }
+        if (b != a) {
+            for (int j = 0; j < b.count; j++) {
+                if (a.index.get(b.ids[j]) >= 0) continue;
+                NetState.EntitySnapshot e = out.add(b.ids[j]);
+                b.copyTo(j, e);
+                out.rawX[out.count - 1] = e.x;
+                out.rawY[out.count - 1] = e.y;
+            }
+        }
+        extrapolated = ahead > 0;
+        basisMillis = a.tMillis;
+        aheadMs = ahead;
+        return out;
+    }
+
+    /**
+     * Sets entry i of out to raw position (x, y) plus the correction offset carried over from prev.
+     * @param moreMs when the basis changed: how much further the previous extrapolation would have run by now;
+     *               the gap to the new position is added to the offset. NaN otherwise.
+     */
+    private void correct(Sample prev, Sample out, int i, float x, float y, float decay, float moreMs) {
+        NetState.EntitySnapshot e = out.entities[i];
+        float ex = 0, ey = 0;
+        int p = prev.index.get(e.id);
+        if (p >= 0) {
+            ex = prev.errX[p] * decay;
+            ey = prev.errY[p] * decay;
+            if (!Float.isNaN(moreMs)) {
+                NetState.EntitySnapshot old = prev.entities[p];
+                float ox = prev.rawX[p] + old.vx * moreMs / 1000f;
+                float oy = prev.rawY[p] + old.vy * moreMs / 1000f;
+                if (old.kind == NetState.KIND_PLAYER) {
+                    ox = PlayerMovement.clampX(ox);
+                    oy = PlayerMovement.clampY(oy);
+                }
+                ex += ox - x;
+                ey += oy - y;
+            }
+            if (ex * ex + ey * ey > SNAP_DISTANCE * SNAP_DISTANCE) {
+                ex = 0;
+                ey = 0;
+            }
+        }
+        out.rawX[i] = x;
+        out.rawY[i] = y;
+        out.errX[i] = ex;
+        out.errY[i] = ey;
+        e.x = x + ex;
+        e.y = y + ey;
+        if (e.kind == NetState.KIND_PLAYER) {
+            e.x = PlayerMovement.clampX(e.x);
+            e.y = PlayerMovement.clampY(e.y);
+        }
+    }
+
+    /**
+     * sample() copied into a new map keyed by id; allocates, for tools and tests.
+     */
+    public Map<Integer, NetState.EntitySnapshot> sampleMap(long nowMillis) {
+        Sample s = sample(nowMillis);
+        Map<Integer, NetState.EntitySnapshot> result = new HashMap<>();
+        for (int i = 0; i < s.size(); i++) {
+            NetState.EntitySnapshot e = s.get(i);
+            NetState.EntitySnapshot copy = new NetState.EntitySnapshot(e.id, e.x, e.y, e.kind, e.hp, e.owner, e.inputSeq);
+            copy.vx = e.vx;
+            copy.vy = e.vy;
+            result.put(e.id, copy);
         }
         return result;
     }
+
+    /**
+     * Current playout delay in milliseconds.
+     */
+    public float getDelayMs() { return delayMs; }
+
+    public float getTargetDelayMs() { return targetDelayMs; }
+
+    /**
+     * p99 minus minimum keyframe transit over the recent window.
+     */
+    public float getJitterMs() { return jitterMs; }
+
+    /**
+     * Times sampling ran past the newest keyframe and had to extrapolate or hold the last state.
+     */
+    public long getUnderruns() { return underruns; }
+
+    /**
+     * Keyframes newer than the last sample time (how far ahead of playback the buffer is).
+     */
+    public int getBufferDepth() { return depth; }
+
+    /**
+     * Keyframes dropped because the game thread stopped draining them.
+     */
+    public long getDroppedFrames() { return dropped; }
 }
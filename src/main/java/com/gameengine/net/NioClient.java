@@ -12,7 +12,7 @@ import java.util.Iterator;
 /**
  * Minimal NIO client that connects to server, receives keyframes, and sends INPUT lines.
  */
-public class NioClient implements Runnable {
+public class NioClient implements NetClient {
     private final String host;
     private final int port;
     private final NetworkBuffer buffer;
@@ -26,7 +26,27 @@ public class NioClient implements Runnable {
 
     private Selector selector;
     private SocketChannel channel;
-    private final StringBuilder recv = new StringBuilder();
+    // raw inbound bytes: JSON lines until the server acks PROTO, binary frames after
+    private final FrameReader inbound = new FrameReader(8192, WireProtocol.MAX_FRAME_BYTES + 4);
+    private final SnapshotDecoder decoder = new SnapshotDecoder();
+    private volatile boolean binary = false;
+    // sequence of the last INPUT line; only the game thread sends input
+    private int inputSeq = 0;
+
+    private static final byte[] KF_PREFIX = ascii("{\"type\":\"kf\"");
+    private static final byte[] WELCOME_PREFIX = ascii("{\"type\":\"welcome\"");
+    private static final byte[] PROTO_PREFIX = ascii("{\"type\":\"proto\"");
+    private static final byte[] PONG_PREFIX = ascii("{\"type\":\"pong\"");
+    private static final byte[] C_KEY = ascii("\"c\":");
+    private static final byte[] S_KEY = ascii("\"s\":");
+    private static final byte[] ENC_BIN = ascii("\"enc\":\"bin\"");
+    private static final byte[] ID_KEY = ascii("\"id\":");
+    private static final byte[] T_KEY = ascii("\"t\":");
+    private static final byte[] ENTITIES_KEY = ascii("\"entities\":[");
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
 
     public void stop() { running = false; if (selector != null) selector.wakeup(); }
 
@@ -46,6 +66,13 @@ public class NioClient implements Runnable {
                     if (key.isConnectable()) finishConnect();
                     if (key.isReadable()) read();
                 }
+                if (channel.isConnected()) {
+                    long now = System.currentTimeMillis();
+                    ClockSync clock = buffer.getClock();
+                    if (clock.pingDue(now)) {
+                        sendLine(WireProtocol.PING_PREFIX + now + "," + clock.getEchoServerMillis() + "," + clock.getEchoHoldMillis(now));
+                    }
+                }
             }
         } catch (IOException e) {
             e.printStackTrace();
@@ -57,84 +84,198 @@ public class NioClient implements Runnable {
 
     private void finishConnect() throws IOException {
         if (channel.isConnectionPending()) channel.finishConnect();
+        // small input and ping lines must not wait for Nagle's algorithm (it would skew RTT and clock offset)
+        channel.socket().setTcpNoDelay(true);
         channel.register(selector, SelectionKey.OP_READ);
         // Send HELLO with username if provided via system property or env
         String name = System.getenv("NETWORK_USERNAME");
         if (name == null || name.isEmpty()) {
             name = System.getProperty("network.username", "Player");
         }
+        // Ask for the binary snapshot protocol unless NET_PROTOCOL=json; servers that don't know it ignore the line
+        String proto = System.getenv("NET_PROTOCOL");
+        if (proto == null || !proto.equalsIgnoreCase("json")) {
+            String req = WireProtocol.PROTO_PREFIX + WireProtocol.VERSION + "\n";
+            channel.write(ByteBuffer.wrap(req.getBytes(StandardCharsets.UTF_8)));
+        }
         String hello = "HELLO:" + name + "\n";
         channel.write(ByteBuffer.wrap(hello.getBytes(StandardCharsets.UTF_8)));
     }
 
     private void read() throws IOException {
-        ByteBuffer buf = ByteBuffer.allocate(2048);
-        int n = channel.read(buf);
-        if (n <= 0) return;
-        buf.flip();
-        recv.append(StandardCharsets.UTF_8.decode(buf));
-        int idx;
-        while ((idx = recv.indexOf("\n")) >= 0) {
-            String line = recv.substring(0, idx).trim();
-            recv.delete(0, idx + 1);
-            if (line.startsWith("{\"type\":\"kf\"")) {
-                parseKF(line);
-            } else if (line.startsWith("{\"type\":\"welcome\"")) {
-                int idIdx = line.indexOf("\"id\":");
-                if (idIdx > 0) {
-                    try { ownId = Integer.parseInt(line.substring(idIdx + 5, line.indexOf('}', idIdx)).replaceAll("[^0-9]","")); } catch (Exception ignored) {}
+        int n = inbound.read(channel);
+        try {
+            if (n > 0) drainInbound();
+        } finally {
+            inbound.compact();
+        }
+    }
+
+    private void drainInbound() throws IOException {
+        ByteBuffer in = inbound.buffer();
+        while (in.hasRemaining()) {
+            if (binary) {
+                int size = SnapshotDecoder.completeFrameSize(in);
+                if (size < 0) return;
+                if (in.get(in.position() + 4) == WireProtocol.MSG_PONG) {
+                    ByteBuffer pong = in.duplicate();
+                    pong.position(in.position() + WireProtocol.HEADER_BYTES);
+                    try {
+                        long c = WireProtocol.getVarlong(pong);
+                        long s = WireProtocol.getVarlong(pong);
+                        buffer.getClock().onPong(c, s, System.currentTimeMillis());
+                    } catch (RuntimeException e) {
+                        throw new IOException("malformed pong", e);
+                    }
+                    in.position(in.position() + size);
+                    continue;
                 }
+                NetworkBuffer.Keyframe kf = decoder.decode(in, names);
+                if (kf != null) buffer.push(kf);
+                int ack = decoder.takeAck();
+                if (ack > 0) sendLine(WireProtocol.ACK_PREFIX + ack);
+                if (decoder.takeResyncRequest()) sendLine(WireProtocol.RESYNC);
+                continue;
+            }
+            int nl = inbound.nextLineEnd();
+            if (nl < 0) return;
+            int start = in.position();
+            int end = nl;
+            while (start < end && in.get(start) <= ' ') start++;
+            while (end > start && in.get(end - 1) <= ' ') end--;
+            handleLine(in, start, end);
+            in.position(nl + 1);
+        }
+    }
+
+    private void handleLine(ByteBuffer in, int start, int end) {
+        if (FrameReader.startsWith(in, start, end, KF_PREFIX)) {
+            parseKF(in, start, end);
+        } else if (FrameReader.startsWith(in, start, end, PONG_PREFIX)) {
+            int c = FrameReader.find(in, start, end, C_KEY);
+            int s = FrameReader.find(in, start, end, S_KEY);
+            if (c < 0 || s < 0) return;
+            try {
+                long sent = FrameReader.parseLong(in, c, FrameReader.numberEnd(in, c, end));
+                long server = FrameReader.parseLong(in, s, FrameReader.numberEnd(in, s, end));
+                buffer.getClock().onPong(sent, server, System.currentTimeMillis());
+            } catch (NumberFormatException ignored) {}
+        } else if (FrameReader.startsWith(in, start, end, WELCOME_PREFIX)) {
+            int at = FrameReader.find(in, start, end, ID_KEY);
+            if (at > 0) {
+                try { ownId = FrameReader.parseInt(in, at, FrameReader.numberEnd(in, at, end)); } catch (NumberFormatException ignored) {}
             }
+        } else if (FrameReader.startsWith(in, start, end, PROTO_PREFIX)) {
+            // everything after this line is binary frames
+            binary = FrameReader.find(in, start, end, ENC_BIN) >= 0;
         }
     }
 
-    private void parseKF(String json) {
-        // very lightweight parsing without external deps
+    private void parseKF(ByteBuffer in, int start, int end) {
+        // parsed in place from the inbound bytes; only the resulting keyframe is allocated
         try {
-            int tIdx = json.indexOf("\"t\":");
-            int commaAfterT = json.indexOf(',', tIdx);
-            String tStr = json.substring(tIdx + 4, commaAfterT).trim();
-            double tSec = Double.parseDouble(tStr);
-            long tMillis = (long)(tSec * 1000);
-
-            int entsIdx = json.indexOf("\"entities\":");
-            int arrStart = json.indexOf('[', entsIdx);
-            int arrEnd = json.indexOf(']', arrStart);
-            String arr = json.substring(arrStart + 1, arrEnd);
-            String[] items = arr.isEmpty() ? new String[0] : arr.split("\\},\\{");
+            int tAt = FrameReader.find(in, start, end, T_KEY);
+            if (tAt < 0) return;
+            long tMillis = (long) (FrameReader.parseDouble(in, tAt, FrameReader.numberEnd(in, tAt, end)) * 1000);
+            int p = FrameReader.find(in, tAt, end, ENTITIES_KEY);
+            if (p < 0) return;
             java.util.Map<Integer, NetState.EntitySnapshot> map = new java.util.HashMap<>();
-            for (String it : items) {
-                String s = it.replace("{", "").replace("}", "");
-                String[] kvs = s.split(",");
-                int id = 0; float x = 0, y = 0; char kind = 'p'; int hp = 0; int owner = 0; String nm = null;
-                for (String kv : kvs) {
-                    String[] pair = kv.split(":");
-                    if (pair.length < 2) continue;
-                    String key = pair[0].replace("\"", "").trim();
-                    String val = pair[1].trim().replace("\"","");
-                    if ("id".equals(key)) id = Integer.parseInt(val);
-                    else if ("x".equals(key)) x = Float.parseFloat(val);
-                    else if ("y".equals(key)) y = Float.parseFloat(val);
-                    else if ("k".equals(key)) kind = val.isEmpty() ? 'p' : val.charAt(0);
-                    else if ("hp".equals(key)) hp = Integer.parseInt(val);
-                    else if ("o".equals(key)) owner = Integer.parseInt(val);
-                    else if ("nm".equals(key)) nm = val;
-                }
-                map.put(id, new NetState.EntitySnapshot(id, x, y, kind, hp, owner));
-                if (nm != null) names.put(id, nm);
+            while (p >= 0) {
+                int open = FrameReader.indexOf(in, p, end, (byte) '{');
+                if (open < 0) break;
+                p = parseEntity(in, open + 1, end, map);
             }
             buffer.push(new NetworkBuffer.Keyframe(tMillis, map));
-        } catch (Exception ignored) { }
+        } catch (RuntimeException ignored) { }
+    }
+
+    /**
+     * Parses one {"key":value,...} object starting after its '{'.
+     * @return the index after its '}', or -1 if the object is malformed
+     */
+    private int parseEntity(ByteBuffer in, int p, int end, java.util.Map<Integer, NetState.EntitySnapshot> map) {
+        int id = 0; float x = 0, y = 0, vx = 0, vy = 0; char kind = 'p'; int hp = 0; int owner = 0; int inputSeq = 0;
+        int nmFrom = -1, nmTo = -1;
+        boolean closed = false;
+        while (p < end) {
+            byte c = in.get(p);
+            if (c == '}') { p++; closed = true; break; }
+            if (c == ',' || c == ' ') { p++; continue; }
+            if (c != '"') return -1;
+            int ks = p + 1;
+            int ke = FrameReader.indexOf(in, ks, end, (byte) '"');
+            if (ke < 0 || ke + 1 >= end || in.get(ke + 1) != ':') return -1;
+            int vs = ke + 2;
+            int ve;
+            if (vs < end && in.get(vs) == '"') {
+                vs++;
+                ve = stringEnd(in, vs, end);
+                if (ve < 0) return -1;
+                p = ve + 1;
+            } else {
+                ve = vs;
+                while (ve < end && in.get(ve) != ',' && in.get(ve) != '}') ve++;
+                p = ve;
+            }
+            int keyLen = ke - ks;
+            byte k0 = in.get(ks);
+            if (keyLen == 1) {
+                if (k0 == 'x') x = FrameReader.parseFloat(in, vs, ve);
+                else if (k0 == 'y') y = FrameReader.parseFloat(in, vs, ve);
+                else if (k0 == 'k') kind = ve > vs ? (char) in.get(vs) : 'p';
+                else if (k0 == 'o') owner = FrameReader.parseInt(in, vs, ve);
+            } else if (keyLen == 2) {
+                byte k1 = in.get(ks + 1);
+                if (k0 == 'i' && k1 == 'd') id = FrameReader.parseInt(in, vs, ve);
+                else if (k0 == 'h' && k1 == 'p') hp = FrameReader.parseInt(in, vs, ve);
+                else if (k0 == 's' && k1 == 'q') inputSeq = FrameReader.parseInt(in, vs, ve);
+                else if (k0 == 'n' && k1 == 'm') { nmFrom = vs; nmTo = ve; }
+                else if (k0 == 'v' && k1 == 'x') vx = FrameReader.parseFloat(in, vs, ve);
+                else if (k0 == 'v' && k1 == 'y') vy = FrameReader.parseFloat(in, vs, ve);
+            }
+        }
+        if (!closed) return -1;
+        NetState.EntitySnapshot e = new NetState.EntitySnapshot(id, x, y, kind, hp, owner, inputSeq);
+        e.vx = vx;
+        e.vy = vy;
+        map.put(id, e);
+        if (nmFrom >= 0 && !FrameReader.equalsAscii(in, nmFrom, nmTo, names.get(id))) {
+            // names only change on join, so decoding here is rare
+            names.put(id, FrameReader.string(in, nmFrom, nmTo).replace("\"\"", "\""));
+        }
+        return p;
     }
 
-    public void sendInput(float vx, float vy, boolean fire, float ax, float ay) {
-        if (channel == null || !channel.isConnected()) return;
-        String line = "INPUT:" + vx + "," + vy + "," + (fire ? 1 : 0) + "," + ax + "," + ay + "\n";
+    /**
+     * Index of the quote closing a string value that starts at from; the server escapes quotes by doubling them.
+     */
+    private static int stringEnd(ByteBuffer in, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (in.get(i) != '"') continue;
+            if (i + 1 < end && in.get(i + 1) == '"') { i++; continue; }
+            return i;
+        }
+        return -1;
+    }
+
+    public int sendInput(float vx, float vy, boolean fire, float ax, float ay) {
+        if (channel == null || !channel.isConnected()) return 0;
+        int seq = ++inputSeq;
+        String line = "INPUT:" + vx + "," + vy + "," + (fire ? 1 : 0) + "," + ax + "," + ay + "," + seq + "\n";
         try {
             channel.write(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)));
         } catch (IOException ignored) { }
+        return seq;
+    }
+
+    private void sendLine(String line) {
+        try {
+            channel.write(ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException ignored) { }
     }
 
     public int getOwnId() { return ownId; }
+    public float getRttMs() { return buffer.getClock().getRttMs(); }
+    public boolean isBinaryProtocol() { return binary; }
     public String getName(int id) { return names.getOrDefault(id, ""); }
 }
@@ -0,0 +1,419 @@
+package com.gameengine.net;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * One IO thread of NioServer: owns a Selector and every connection the acceptor assigned to it.
+ * Reads client lines, posts them to the world of the connection's Room, and encodes and queues each
+ * snapshot a room publishes for this reactor's connections in that room.
+ * All per-connection state is confined to this thread.
+ */
+class NioReactor implements Runnable {
+    private static final int MAX_LINE_BYTES = 64 * 1024;
+    private static final byte[] INPUT_PREFIX = "INPUT:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HELLO_PREFIX = "HELLO:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PROTO_PREFIX = WireProtocol.PROTO_PREFIX.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ACK_PREFIX = WireProtocol.ACK_PREFIX.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RESYNC = WireProtocol.RESYNC.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PING_PREFIX = WireProtocol.PING_PREFIX.getBytes(StandardCharsets.US_ASCII);
+
+    private final NioServer owner;
+    private final Selector selector;
+    // connections handed over by the acceptor thread, registered on the next wake-up
+    private final ConcurrentLinkedQueue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+
+    // inbound bytes per connection, parsed in place
+    private final Map<SocketChannel, FrameReader> readers = new HashMap<>();
+    // clients that switched to binary keyframes; NET_BINARY=0 keeps everyone on JSON
+    private final Set<SocketChannel> binaryClients = new HashSet<>();
+    private final SnapshotEncoder encoder = new SnapshotEncoder();
+    // delta snapshots for binary clients: what each client was sent, and what it acknowledged
+    private final Map<SocketChannel, SnapshotHistory<Map<Integer, EntityRecord>>> histories = new HashMap<>();
+    private int snapshotSeq = 0;
+    // area of interest grid, rebuilt by this reactor for every snapshot (null = whole world)
+    private final InterestGrid interest;
+    // pending output per connection, drained on OP_WRITE
+    private final Map<SocketChannel, OutboundQueue> outbound = new HashMap<>();
+    // player id per connection
+    private final Map<SocketChannel, Integer> playerIds = new HashMap<>();
+    // room per connection, this reactor's connections per room, and the last snapshot broadcast per room
+    private final Map<SocketChannel, Room> roomOf = new HashMap<>();
+    private final Map<Room, Set<SocketChannel>> roomMembers = new LinkedHashMap<>();
+    private final Map<Room, Room.Published> lastBroadcast = new HashMap<>();
+    // counters read by other threads (benchmarks, stats)
+    private volatile int connectionCount;
+    private volatile long bytesOut;
+
+    NioReactor(NioServer owner) throws IOException {
+        this.owner = owner;
+        this.selector = Selector.open();
+        this.interest = owner.aoiRadius > 0 ? new InterestGrid(owner.aoiRadius) : null;
+    }
+
+    /**
+     * Hands a connected, non-blocking channel to this reactor (any thread).
+     */
+    void assign(SocketChannel sc) {
+        pending.add(sc);
+        selector.wakeup();
+    }
+
+    void wakeup() {
+        selector.wakeup();
+    }
+
+    void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    int getConnectionCount() {
+        return connectionCount;
+    }
+
+    long getBytesOut() {
+        return bytesOut;
+    }
+
+    @Override public void run() {
+        try {
+            while (running) {
+                selector.select(100);
+                SocketChannel sc;
+                while ((sc = pending.poll()) != null) {
+                    try {
+                        register(sc);
+                    } catch (IOException e) {
+                        try { sc.close(); } catch (IOException ignored) {}
+                    }
+                }
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next(); it.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isReadable()) read(key);
+                    if (key.isValid() && key.isWritable()) flush((SocketChannel) key.channel());
+                }
+                if (!roomMembers.isEmpty()) {
+                    // copies: a failed write closes the connection and edits these collections
+                    for (Room room : new ArrayList<>(roomMembers.keySet())) {
+                        Room.Published snap = room.published;
+                        if (snap == null || snap == lastBroadcast.get(room)) continue;
+                        Set<SocketChannel> members = roomMembers.get(room);
+                        if (members == null) continue;
+                        lastBroadcast.put(room, snap);
+                        broadcastKF(snap, new ArrayList<>(members));
+                    }
+                }
+                connectionCount = playerIds.size();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            for (SocketChannel c : new HashSet<>(playerIds.keySet())) {
+                try { cleanup(c); } catch (IOException ignored) {}
+            }
+            try { selector.close(); } catch (IOException ignored) {}
+        }
+    }
+
+    private void register(SocketChannel sc) throws IOException {
+        sc.register(selector, SelectionKey.OP_READ);
+        readers.put(sc, new FrameReader(1024, MAX_LINE_BYTES));
+        outbound.put(sc, new OutboundQueue(owner.sendHighWater));
+        int id = owner.nextPlayerId();
+        playerIds.put(sc, id);
+        // welcome with assigned id
+        String welcome = "{\"type\":\"welcome\",\"id\":" + id + "}\n";
+        send(sc, ByteBuffer.wrap(welcome.getBytes(StandardCharsets.UTF_8)), false);
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        SocketChannel sc = (SocketChannel) key.channel();
+        FrameReader in = readers.get(sc);
+        if (in == null) return;
+        int n;
+        try {
+            n = in.read(sc);
+        } catch (IOException e) { // reset by peer, or a line longer than MAX_LINE_BYTES
+            n = -1;
+        }
+        if (n <= 0) { // closed
+            cleanup(sc);
+            return;
+        }
+        ByteBuffer buf = in.buffer();
+        int nl;
+        while ((nl = in.nextLineEnd()) >= 0) {
+            int start = buf.position();
+            int end = nl;
+            while (start < end && buf.get(start) <= ' ') start++;
+            while (end > start && buf.get(end - 1) <= ' ') end--;
+            handleLine(sc, buf, start, end);
+            buf.position(nl + 1);
+        }
+        in.compact();
+    }
+
+    /**
+     * One trimmed client line in buf[start, end); parsed in place without building strings (except HELLO names).
+     */
+    private void handleLine(SocketChannel sc, ByteBuffer buf, int start, int end) {
+        if (FrameReader.startsWith(buf, start, end, INPUT_PREFIX)) {
+            try {
+                float vx = 0, vy = 0, ax = 0f, ay = -1f;
+                boolean fire = false;
+                int seq = 0;
+                int field = 0;
+                for (int p = start + INPUT_PREFIX.length; p < end && field < 6; field++) {
+                    int q = FrameReader.indexOf(buf, p, end, (byte) ',');
+                    if (q < 0) q = end;
+                    switch (field) {
+                        case 0: vx = FrameReader.parseFloat(buf, p, q); break;
+                        case 1: vy = FrameReader.parseFloat(buf, p, q); break;
+                        case 2: fire = isTrue(buf, p, q); break;
+                        case 3: ax = FrameReader.parseFloat(buf, p, q); break;
+                        case 4: ay = FrameReader.parseFloat(buf, p, q); break;
+                        default: seq = FrameReader.parseInt(buf, p, q); break;
+                    }
+                    p = q + 1;
+                }
+                if (field < 2) return;
+                Integer id = playerIds.get(sc);
+                // a client that sends input before HELLO is placed in a room automatically
+                Room room = id == null ? null : joinRoom(sc, id, null);
+                if (room != null) room.world().postInput(id, seq, vx, vy, fire, ax, ay);
+            } catch (RuntimeException ignored) { }
+        } else if (FrameReader.startsWith(buf, start, end, PING_PREFIX)) {
+            handlePing(sc, buf, start + PING_PREFIX.length, end);
+        } else if (FrameReader.startsWith(buf, start, end, PROTO_PREFIX)) {
+            int version = -1;
+            try { version = FrameReader.parseInt(buf, start + PROTO_PREFIX.length, end); } catch (NumberFormatException ignored) {}
+            if (owner.binaryEnabled && version == WireProtocol.VERSION && !binaryClients.contains(sc)) {
+                // ack in JSON, then this connection only receives binary frames
+                String ack = WireProtocol.protoAckLine(version);
+                send(sc, ByteBuffer.wrap(ack.getBytes(StandardCharsets.UTF_8)), false);
+                binaryClients.add(sc);
+                if (owner.deltaEnabled) histories.put(sc, new SnapshotHistory<>(WireProtocol.DELTA_HISTORY));
+            }
+        } else if (FrameReader.startsWith(buf, start, end, ACK_PREFIX)) {
+            SnapshotHistory<Map<Integer, EntityRecord>> h = histories.get(sc);
+            if (h != null) {
+                try { h.ack(FrameReader.parseInt(buf, start + ACK_PREFIX.length, end)); } catch (NumberFormatException ignored) {}
+            }
+        } else if (end - start == RESYNC.length && FrameReader.startsWith(buf, start, end, RESYNC)) {
+            SnapshotHistory<Map<Integer, EntityRecord>> h = histories.get(sc);
+            if (h != null) h.resetAck();
+        } else if (FrameReader.startsWith(buf, start, end, HELLO_PREFIX)) {
+            // HELLO:<name> or HELLO:<name>@<room>
+            String nm = FrameReader.string(buf, start + HELLO_PREFIX.length, end).trim();
+            String requestedRoom = null;
+            int at = nm.lastIndexOf('@');
+            if (at >= 0) {
+                requestedRoom = nm.substring(at + 1).trim();
+                nm = nm.substring(0, at).trim();
+            }
+            Integer id = playerIds.get(sc);
+            if (id == null) return;
+            Room room = joinRoom(sc, id, requestedRoom);
+            if (nm.length() > 0) room.world().postName(id, nm);
+        }
+    }
+
+    /**
+     * PING:t0[,echo,hold] - answers with a pong in the connection's encoding, and takes an RTT sample
+     * from the echoed server time of the previous pong.
+     */
+    private void handlePing(SocketChannel sc, ByteBuffer buf, int from, int end) {
+        long sent = 0, echo = 0, hold = 0;
+        int n = 0;
+        try {
+            for (int p = from; p < end && n < 3; n++) {
+                int q = FrameReader.indexOf(buf, p, end, (byte) ',');
+                if (q < 0) q = end;
+                long v = FrameReader.parseLong(buf, p, q);
+                switch (n) {
+                    case 0: sent = v; break;
+                    case 1: echo = v; break;
+                    default: hold = v; break;
+                }
+                p = q + 1;
+            }
+        } catch (NumberFormatException e) {
+            return;
+        }
+        if (n == 0) return;
+        long now = System.currentTimeMillis();
+        ByteBuffer pong = binaryClients.contains(sc)
+            ? WireProtocol.pongFrame(sent, now)
+            : ByteBuffer.wrap(WireProtocol.pongLine(sent, now).getBytes(StandardCharsets.UTF_8));
+        send(sc, pong, false);
+        Integer id = playerIds.get(sc);
+        if (id != null && n == 3 && echo > 0) {
+            long rtt = now - echo - hold;
+            if (rtt >= 0) owner.recordRtt(id, rtt);
+        }
+    }
+
+    /**
+     * The connection's room, joining one on its first HELLO (or first INPUT) line.
+     */
+    private Room joinRoom(SocketChannel sc, int id, String requested) {
+        Room room = roomOf.get(sc);
+        if (room != null) return room;
+        room = owner.joinRoom(requested);
+        roomOf.put(sc, room);
+        roomMembers.computeIfAbsent(room, r -> new LinkedHashSet<>()).add(sc);
+        room.world().postJoin(id);
+        return room;
+    }
+
+    private static boolean isTrue(ByteBuffer buf, int from, int to) {
+        if (to - from == 1) return buf.get(from) == '1';
+        if (to - from != 4) return false;
+        for (int i = 0; i < 4; i++) {
+            if ((buf.get(from + i) | 0x20) != "true".charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private void cleanup(SocketChannel sc) throws IOException {
+        readers.remove(sc);
+        outbound.remove(sc);
+        Integer id = playerIds.remove(sc);
+        if (id != null) owner.forgetRtt(id);
+        Room room = roomOf.remove(sc);
+        if (room != null) {
+            if (id != null) room.world().postLeave(id);
+            Set<SocketChannel> members = roomMembers.get(room);
+            if (members != null) {
+                members.remove(sc);
+                if (members.isEmpty()) {
+                    roomMembers.remove(room);
+                    lastBroadcast.remove(room);
+                }
+            }
+            owner.leaveRoom(room);
+        }
+        binaryClients.remove(sc);
+        histories.remove(sc);
+        try { sc.close(); } catch (IOException ignored) {}
+    }
+
+    private void broadcastKF(Room.Published snap, List<SocketChannel> targets) {
+        // the world is indexed once per broadcast; without AOI every client shares the same view,
+        // so each shared format is encoded at most once. Deltas always depend on each client's ack.
+        long now = snap.timeMillis;
+        Map<Integer, EntityRecord> world = snap.world;
+        if (interest != null) interest.rebuild(world);
+        ByteBuffer sharedJson = null;
+        ByteBuffer sharedFrame = null;
+        int seq = ++snapshotSeq;
+        for (SocketChannel sc : targets) {
+            Integer id = playerIds.get(sc);
+            // players joined after this snapshot was taken get the next one
+            if (id == null || !world.containsKey(id)) continue;
+            Map<Integer, EntityRecord> view = interest == null ? world : interest.relevantTo(id);
+            SnapshotHistory<Map<Integer, EntityRecord>> history = histories.get(sc);
+            if (history != null) {
+                // the encoder reuses its buffer, so a queued delta needs its own copy
+                ByteBuffer delta = encoder.encodeSnapshot(seq, history.getAcked(), now, view, history.ackedSnapshot());
+                send(sc, detach(delta), true);
+                history.put(seq, view);
+            } else if (binaryClients.contains(sc)) {
+                ByteBuffer frame = sharedFrame;
+                if (frame == null) {
+                    frame = detach(encodeBinaryKF(now, view));
+                    if (interest == null) sharedFrame = frame;
+                }
+                send(sc, frame.duplicate(), true);
+            } else {
+                ByteBuffer json = sharedJson;
+                if (json == null) {
+                    json = ByteBuffer.wrap(encodeJsonKF(now, view)).asReadOnlyBuffer();
+                    if (interest == null) sharedJson = json;
+                }
+                send(sc, json.duplicate(), true);
+            }
+        }
+    }
+
+    /**
+     * Queues data for sc and writes what the socket accepts now; the rest goes out on OP_WRITE.
+     */
+    private void send(SocketChannel sc, ByteBuffer data, boolean droppable) {
+        OutboundQueue q = outbound.get(sc);
+        if (q == null) return;
+        q.enqueue(data, droppable);
+        flush(sc);
+    }
+
+    private void flush(SocketChannel sc) {
+        OutboundQueue q = outbound.get(sc);
+        if (q == null) return;
+        try {
+            long before = q.getBytesWritten();
+            boolean drained = q.flush(sc);
+            bytesOut += q.getBytesWritten() - before;
+            SelectionKey key = sc.keyFor(selector);
+            if (key != null && key.isValid()) {
+                key.interestOps(drained ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        } catch (IOException e) {
+            try { cleanup(sc); } catch (IOException ignored) {}
+        }
+    }
+
+    private static ByteBuffer detach(ByteBuffer frame) {
+        ByteBuffer copy = ByteBuffer.allocate(frame.remaining());
+        copy.put(frame.duplicate()).flip();
+        return copy.asReadOnlyBuffer();
+    }
+
+    private byte[] encodeJsonKF(long now, Map<Integer, EntityRecord> view) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"type\":\"kf\",\"t\":").append(now/1000.0).append(",\"entities\":[");
+        boolean first = true;
+        for (EntityRecord r : view.values()) {
+            if (!first) sb.append(','); first = false;
+            sb.append('{').append("\"id\":").append(r.id)
+              .append(",\"x\":").append(r.x).append(",\"y\":").append(r.y)
+              .append(",\"vx\":").append(r.vx).append(",\"vy\":").append(r.vy);
+            if (r.isPlayer()) {
+                sb.append(",\"k\":\"p\",\"hp\":").append(r.hp).append(",\"sq\":").append(r.inputSeq)
+                  .append(",\"nm\":\"").append(r.name.replace("\"","\"\""))
+                  .append("\"}");
+            } else {
+                sb.append(",\"k\":\"b\",\"o\":").append(r.owner).append('}');
+            }
+        }
+        sb.append("]}\n");
+        String json = sb.toString();
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private ByteBuffer encodeBinaryKF(long now, Map<Integer, EntityRecord> view) {
+        encoder.begin(now, view.size());
+        for (EntityRecord r : view.values()) {
+            if (r.isPlayer()) encoder.writePlayer(r.id, r.x, r.y, r.vx, r.vy, r.hp, r.inputSeq, r.name);
+            else encoder.writeBullet(r.id, r.x, r.y, r.vx, r.vy, r.owner);
+        }
+        return encoder.finish();
+    }
+}
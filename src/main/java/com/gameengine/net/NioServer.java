@@ -2,210 +2,300 @@ package com.gameengine.net;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Minimal NIO server broadcasting JSON line keyframes and reading INPUT lines.
+ * Minimal NIO server broadcasting keyframes and reading INPUT lines.
+ * Keyframes go out as JSON lines, or as binary frames to clients that negotiated PROTO (see WireProtocol).
+ * Each client only receives the entities around its own player (InterestGrid, NET_AOI_RADIUS).
+ * Output is queued per connection (OutboundQueue) and written as the socket drains, never blocking the loop.
+ *
+ * Threads: this thread only accepts connections and hands them round-robin to NET_IO_THREADS reactors
+ * (NioReactor, one Selector each) that do all reading, encoding and writing.
+ *
+ * Rooms: a client joins a match with "HELLO:&lt;name&gt;@&lt;room&gt;", or is placed in the first room with a free
+ * slot (NET_ROOM_CAPACITY) when it sends a plain "HELLO:&lt;name&gt;". Every Room owns its own world and
+ * tick; rooms share one simulation pool (NET_SIM_THREADS) and are closed when their last client leaves.
+ *
+ * UDP: clients may instead talk to a UdpReactor on NET_UDP_PORT (default: the TCP port number, &lt;= 0 disables),
+ * which avoids TCP head-of-line blocking for snapshots (see UdpProtocol). Both transports share the rooms.
  */
 public class NioServer implements Runnable {
+    private static final float DEFAULT_AOI_RADIUS = 600f;
+    private static final int DEFAULT_SEND_HWM = 256 * 1024;
+    private static final float DEFAULT_TICK_RATE = 60f;
+    private static final float DEFAULT_SEND_RATE = 20f;
+    private static final int DEFAULT_ROOM_CAPACITY = 8;
+    private static final int MAX_ROOM_NAME = 32;
+    private static final int ACCEPT_BACKLOG = 1024;
     private final int port;
     private volatile boolean running = true;
     private Selector selector;
     private ServerSocketChannel server;
-    private final Map<SocketChannel,StringBuilder> recvBuf = new HashMap<>();
 
-    // Simple world state: a single entity moving with last input per client
-    private static class ClientInput { float vx, vy; boolean fire; float ax, ay; }
-    private static class Player { int id; float x, y; int hp = 100; float cd=0; String name = "Player"; boolean dead = false; }
-    private static class Bullet { int id; float x, y, vx, vy; int owner; float life=2.0f; }
+    // settings shared with the reactors
+    final boolean binaryEnabled;   // NET_BINARY=0 keeps everyone on JSON
+    final boolean deltaEnabled;    // NET_DELTA=0 sends full keyframes to binary clients
+    final float aoiRadius;         // NET_AOI_RADIUS, <= 0 sends the whole world
+    final int sendHighWater;       // NET_SEND_HWM, queued bytes before stale snapshots are dropped
 
-    private final Map<SocketChannel, ClientInput> inputs = new HashMap<>();
-    private final Map<SocketChannel, Player> players = new HashMap<>();
-    private final List<Bullet> bullets = new ArrayList<>();
-    private int nextPlayerId = 1;
-    private int nextBulletId = 10000;
+    // IO reactors; connections are assigned round-robin
+    private final int ioThreads;
+    private final List<NioReactor> reactors = new CopyOnWriteArrayList<>();
+    private final int udpPort;
+    private volatile UdpReactor udp;
+    private int nextReactor = 0;
+    private final AtomicInteger nextPlayerId = new AtomicInteger(1);
+    // smoothed RTT per player, measured from the echo in each client ping
+    private final Map<Integer, Float> rtts = new ConcurrentHashMap<>();
 
-    public NioServer(int port) { this.port = port; }
+    // rooms: each ticks its own world at NET_TICK_RATE and publishes at NET_SEND_RATE, on a pool of NET_SIM_THREADS
+    private final float tickRate;
+    private final float sendRate;
+    private final int simThreads;
+    private final int roomCapacity;
+    private ScheduledExecutorService simExecutor;
+    private final Object roomLock = new Object();
+    private final Map<String, Room> rooms = new LinkedHashMap<>();
+    private int nextRoomNumber = 1;
 
-    public void stop() { running = false; if (selector != null) selector.wakeup(); }
+    public NioServer(int port) {
+        this(port, (int) envFloat("NET_IO_THREADS", defaultIoThreads()));
+    }
+
+    /**
+     * @param ioThreads number of reactor threads (at least 1)
+     */
+    public NioServer(int port, int ioThreads) {
+        this.port = port;
+        this.ioThreads = Math.max(1, ioThreads);
+        String env = System.getenv("NET_BINARY");
+        this.binaryEnabled = env == null || !(env.equals("0") || env.equalsIgnoreCase("false"));
+        String delta = System.getenv("NET_DELTA");
+        this.deltaEnabled = delta == null || !(delta.equals("0") || delta.equalsIgnoreCase("false"));
+        this.aoiRadius = envFloat("NET_AOI_RADIUS", DEFAULT_AOI_RADIUS);
+        this.sendHighWater = (int) envFloat("NET_SEND_HWM", DEFAULT_SEND_HWM);
+        float tick = envFloat("NET_TICK_RATE", DEFAULT_TICK_RATE);
+        this.tickRate = tick > 0 ? tick : DEFAULT_TICK_RATE;
+        float send = envFloat("NET_SEND_RATE", DEFAULT_SEND_RATE);
+        this.sendRate = send > 0 ? Math.min(send, tickRate) : DEFAULT_SEND_RATE;
+        this.simThreads = Math.max(1, (int) envFloat("NET_SIM_THREADS", defaultIoThreads()));
+        this.roomCapacity = Math.max(1, (int) envFloat("NET_ROOM_CAPACITY", DEFAULT_ROOM_CAPACITY));
+        this.udpPort = (int) envFloat("NET_UDP_PORT", port);
+    }
+
+    private static int defaultIoThreads() {
+        return Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    private static float envFloat(String name, float def) {
+        String v = System.getenv(name);
+        if (v == null) return def;
+        try { return Float.parseFloat(v.trim()); } catch (NumberFormatException e) { return def; }
+    }
+
+    public void stop() {
+        running = false;
+        if (selector != null) selector.wakeup();
+    }
 
     @Override public void run() {
+        List<Thread> ioThreadList = new ArrayList<>();
         try {
             selector = Selector.open();
             server = ServerSocketChannel.open();
             server.configureBlocking(false);
-            server.bind(new InetSocketAddress(port));
+            server.bind(new InetSocketAddress(port), ACCEPT_BACKLOG);
             server.register(selector, SelectionKey.OP_ACCEPT);
 
-            long lastBroadcast = System.currentTimeMillis();
-            long lastPhysics = lastBroadcast;
+            for (int i = 0; i < ioThreads; i++) {
+                NioReactor r = new NioReactor(this);
+                reactors.add(r);
+                Thread t = new Thread(r, "nio-io-" + i);
+                t.setDaemon(true);
+                t.start();
+                ioThreadList.add(t);
+            }
+            startSimulation();
+            if (udpPort > 0) {
+                udp = new UdpReactor(this, udpPort, PacketShim.fromEnv());
+                Thread t = new Thread(udp, "nio-udp");
+                t.setDaemon(true);
+                t.start();
+                ioThreadList.add(t);
+            }
             while (running) {
-                selector.select(25);
+                selector.select(100);
                 Iterator<SelectionKey> it = selector.selectedKeys().iterator();
                 while (it.hasNext()) {
                     SelectionKey key = it.next(); it.remove();
-                    if (!key.isValid()) continue;
-                    if (key.isAcceptable()) accept();
-                    if (key.isReadable()) read(key);
-                }
-                long now = System.currentTimeMillis();
-                float dt = (now - lastPhysics) / 1000.0f;
-                lastPhysics = now;
-                stepWorld(dt);
-                if (now - lastBroadcast >= 50) { // 20Hz
-                    broadcastKF(now);
-                    lastBroadcast = now;
+                    if (key.isValid() && key.isAcceptable()) accept();
                 }
             }
         } catch (IOException e) {
             e.printStackTrace();
         } finally {
+            if (simExecutor != null) simExecutor.shutdownNow();
+            for (NioReactor r : reactors) r.stop();
+            if (udp != null) udp.stop();
+            for (Thread t : ioThreadList) {
+                try { t.join(1000); } catch (InterruptedException ignored) { Thread.currentThread().interrupt(); }
+            }
             try { if (server != null) server.close(); } catch (IOException ignored) {}
             try { if (selector != null) selector.close(); } catch (IOException ignored) {}
         }
     }
 
     private void accept() throws IOException {
-        SocketChannel sc = server.accept();
-        if (sc == null) return;
-        sc.configureBlocking(false);
-        sc.register(selector, SelectionKey.OP_READ);
-        recvBuf.put(sc, new StringBuilder());
-        inputs.put(sc, new ClientInput());
-        Player p = new Player();
-        p.id = nextPlayerId++;
-        p.x = 400; p.y = 300;
-        players.put(sc, p);
-        // welcome with assigned id
-        String welcome = "{\"type\":\"welcome\",\"id\":" + p.id + "}\n";
-        try { sc.write(ByteBuffer.wrap(welcome.getBytes(StandardCharsets.UTF_8))); } catch (IOException ignored) {}
-    }
-
-    private void read(SelectionKey key) throws IOException {
-        SocketChannel sc = (SocketChannel) key.channel();
-        ByteBuffer buf = ByteBuffer.allocate(1024);
-        int n = sc.read(buf);
-        if (n <= 0) { // closed
-            cleanup(sc);
-            return;
+        SocketChannel sc;
+        while ((sc = server.accept()) != null) {
+            sc.configureBlocking(false);
+            sc.socket().setTcpNoDelay(true);
+            NioReactor r = reactors.get(nextReactor);
+            nextReactor = (nextReactor + 1) % reactors.size();
+            r.assign(sc);
         }
-        buf.flip();
-        String s = StandardCharsets.UTF_8.decode(buf).toString();
-        StringBuilder sb = recvBuf.get(sc);
-        sb.append(s);
-        int idx;
-        while ((idx = sb.indexOf("\n")) >= 0) {
-            String line = sb.substring(0, idx).trim();
-            sb.delete(0, idx + 1);
-            if (line.startsWith("INPUT:")) {
-                String[] parts = line.substring(6).split(",");
-                try {
-                    float vx = Float.parseFloat(parts[0]);
-                    float vy = Float.parseFloat(parts[1]);
-                    boolean fire = parts.length > 2 && ("1".equals(parts[2]) || "true".equalsIgnoreCase(parts[2]));
-                    float ax = parts.length > 3 ? Float.parseFloat(parts[3]) : 0f;
-                    float ay = parts.length > 4 ? Float.parseFloat(parts[4]) : -1f;
-                    ClientInput ci = inputs.get(sc);
-                    if (ci != null) { ci.vx = vx; ci.vy = vy; ci.fire = fire; ci.ax = ax; ci.ay = ay; }
-                } catch (Exception ignored) { }
-            } else if (line.startsWith("HELLO:")) {
-                String nm = line.substring(6).trim();
-                Player p = players.get(sc);
-                if (p != null && nm.length() > 0) p.name = nm;
+    }
+
+    int nextPlayerId() {
+        return nextPlayerId.getAndIncrement();
+    }
+
+    void recordRtt(int playerId, float sampleMs) {
+        rtts.merge(playerId, sampleMs, (old, s) -> old + (s - old) / 8f);
+    }
+
+    void forgetRtt(int playerId) {
+        rtts.remove(playerId);
+    }
+
+    /**
+     * Smoothed round-trip time to a player's client in milliseconds, or -1 if not measured yet.
+     */
+    public float getRttMs(int playerId) {
+        Float v = rtts.get(playerId);
+        return v == null ? -1f : v;
+    }
+
+    private void startSimulation() {
+        simExecutor = Executors.newScheduledThreadPool(simThreads, new ThreadFactory() {
+            private int n = 0;
+            @Override public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "nio-sim-" + n++);
+                t.setDaemon(true);
+                return t;
             }
-        }
+        });
+        System.out.println(String.format("[NioServer] simulation %.0fHz, snapshots %.0fHz, io threads %d, sim threads %d, room capacity %d",
+            tickRate, sendRate, ioThreads, simThreads, roomCapacity));
     }
 
-    private void cleanup(SocketChannel sc) throws IOException {
-        recvBuf.remove(sc);
-        inputs.remove(sc);
-        players.remove(sc);
-        try { sc.close(); } catch (IOException ignored) {}
-    }
-
-    private void broadcastKF(long now) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("{\"type\":\"kf\",\"t\":").append(now/1000.0).append(",\"entities\":[");
-        boolean first = true;
-          for (Player p : players.values()) {
-            if (!first) sb.append(','); first = false;
-            sb.append('{').append("\"id\":").append(p.id)
-              .append(",\"x\":").append(p.x).append(",\"y\":").append(p.y)
-              .append(",\"k\":\"p\",\"hp\":").append(p.hp)
-              .append(",\"nm\":\"").append(p.name.replace("\"","\"\""))
-              .append("\"}");
-        }
-        for (Bullet b : bullets) {
-            if (!first) sb.append(','); first = false;
-            sb.append('{').append("\"id\":").append(b.id)
-              .append(",\"x\":").append(b.x).append(",\"y\":").append(b.y)
-              .append(",\"k\":\"b\",\"o\":").append(b.owner).append('}');
-        }
-        sb.append("]}\n");
-        String json = sb.toString();
-        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
-        for (SelectionKey k : selector.keys()) {
-            if (k.channel() instanceof SocketChannel) {
-                SocketChannel sc = (SocketChannel) k.channel();
-                try {
-                    sc.write(ByteBuffer.wrap(bytes));
-                } catch (IOException e) {
-                    try { cleanup(sc); } catch (IOException ignored) {}
+    /**
+     * Puts one connection into a room: the requested one if it exists with a free slot or doesn't exist yet,
+     * otherwise the first room with a free slot, otherwise a new room. Called from reactor threads.
+     */
+    Room joinRoom(String requested) {
+        synchronized (roomLock) {
+            Room room = null;
+            String name = requested == null ? "" : requested.trim();
+            if (name.length() > MAX_ROOM_NAME) name = name.substring(0, MAX_ROOM_NAME);
+            if (!name.isEmpty()) {
+                room = rooms.get(name);
+                if (room == null) room = openRoom(name);
+                else if (room.members >= roomCapacity) room = null;
+            }
+            if (room == null) {
+                for (Room r : rooms.values()) {
+                    if (r.members < roomCapacity) { room = r; break; }
                 }
             }
+            if (room == null) {
+                String auto;
+                do { auto = "room-" + nextRoomNumber++; } while (rooms.containsKey(auto));
+                room = openRoom(auto);
+            }
+            room.members++;
+            return room;
         }
     }
 
-    private void stepWorld(float dt) {
-        // integrate players
-        float speed = 200f;
-        for (Map.Entry<SocketChannel, ClientInput> entry : inputs.entrySet()) {
-            Player p = players.get(entry.getKey());
-            if (p == null) continue;
-            ClientInput ci = entry.getValue();
-            p.x += ci.vx * speed * dt;
-            p.y += ci.vy * speed * dt;
-            // clamp bounds
-            if (p.x < 0) p.x = 0; if (p.y < 0) p.y = 0; if (p.x > 800) p.x = 800; if (p.y > 600) p.y = 600;
-            // shooting with cooldown
-            p.cd -= dt;
-            if (ci.fire && p.cd <= 0) {
-                Bullet b = new Bullet();
-                b.id = nextBulletId++;
-                b.x = p.x; b.y = p.y; b.owner = p.id;
-                float bx = ci.ax, by = ci.ay;
-                float norm = (float)Math.sqrt(bx*bx + by*by);
-                if (norm < 0.0001f) { bx = 0f; by = -1f; norm = 1f; }
-                bx /= norm; by /= norm;
-                float bs = 400f;
-                b.vx = bx * bs; b.vy = by * bs;
-                bullets.add(b);
-                p.cd = 0.3f; // 300ms
-            }
-            ci.fire = false; // consume
+    /**
+     * Removes one connection from its room; the room stops ticking once it is empty.
+     */
+    void leaveRoom(Room room) {
+        synchronized (roomLock) {
+            if (--room.members > 0) return;
+            rooms.remove(room.getName());
+            room.stop();
+            System.out.println("[NioServer] room " + room.getName() + " closed");
         }
-        // integrate bullets and collisions
-        Iterator<Bullet> it = bullets.iterator();
-        while (it.hasNext()) {
-            Bullet b = it.next();
-            b.x += b.vx * dt; b.y += b.vy * dt; b.life -= dt;
-            if (b.life <= 0) { it.remove(); continue; }
-            for (Player p : players.values()) {
-                if (p.id == b.owner || p.hp <= 0) continue;
-                float dx = p.x - b.x, dy = p.y - b.y;
-                if (dx*dx + dy*dy < 20*20) { // hit radius
-                    p.hp = Math.max(0, p.hp - 10);
-                    if (p.hp == 0) p.dead = true;
-                    it.remove();
-                    break;
-                }
-            }
+    }
+
+    private Room openRoom(String name) {
+        Room room = new Room(name, tickRate, sendRate, this::wakeReactors);
+        rooms.put(name, room);
+        room.start(simExecutor);
+        System.out.println("[NioServer] room " + name + " opened");
+        return room;
+    }
+
+    private void wakeReactors() {
+        for (NioReactor r : reactors) r.wakeup();
+        UdpReactor u = udp;
+        if (u != null) u.wakeup();
+    }
+
+    /**
+     * Rooms currently open.
+     */
+    public List<Room> getRooms() {
+        synchronized (roomLock) {
+            return new ArrayList<>(rooms.values());
         }
     }
+
+    public int getIoThreads() {
+        return ioThreads;
+    }
+
+    /**
+     * Connections currently registered with the reactors, UDP sessions included.
+     */
+    public int getConnectionCount() {
+        int n = 0;
+        for (NioReactor r : reactors) n += r.getConnectionCount();
+        UdpReactor u = udp;
+        if (u != null) n += u.getSessionCount();
+        return n;
+    }
+
+    /**
+     * Bytes written to clients since start, across all reactors.
+     */
+    public long getBytesOut() {
+        long n = 0;
+        for (NioReactor r : reactors) n += r.getBytesOut();
+        UdpReactor u = udp;
+        if (u != null) n += u.getBytesOut();
+        return n;
+    }
+
+    /**
+     * UDP snapshots not sent because they didn't fit in one datagram.
+     */
+    public long getOversizedSnapshots() {
+        UdpReactor u = udp;
+        return u == null ? 0 : u.getOversizedSnapshots();
+    }
 }
@@ -0,0 +1,101 @@
+package com.gameengine.net;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Per-connection queue of outgoing messages, drained with gathering writes as the socket accepts them.
+ * Buffers are queued as-is (callers pass their own duplicate of shared frames) and are never modified.
+ * Snapshots are queued as droppable: once the queued bytes would exceed the high-water mark, snapshots
+ * that haven't started sending are discarded so a slow client gets the newest state instead of a backlog.
+ * Control messages (welcome, proto ack) are never dropped, and a partly written message is always finished.
+ */
+public class OutboundQueue {
+    private static final int MAX_GATHER = 16;
+
+    private static final class Entry {
+        final ByteBuffer data;
+        final boolean droppable;
+        final int start;
+        Entry(ByteBuffer data, boolean droppable) { this.data = data; this.droppable = droppable; this.start = data.position(); }
+        boolean started() { return data.position() != start; }
+    }
+
+    private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+    private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+    private final int highWaterBytes;
+    private long queuedBytes;
+    private long droppedMessages;
+    private long bytesWritten;
+
+    public OutboundQueue(int highWaterBytes) {
+        this.highWaterBytes = Math.max(1, highWaterBytes);
+    }
+
+    /**
+     * Queues a message. A droppable message that pushes the queue past the high-water mark first evicts
+     * every older droppable message that hasn't started sending.
+     */
+    public void enqueue(ByteBuffer data, boolean droppable) {
+        if (!data.hasRemaining()) return;
+        if (droppable && queuedBytes + data.remaining() > highWaterBytes) dropStale();
+        entries.addLast(new Entry(data, droppable));
+        queuedBytes += data.remaining();
+    }
+
+    private void dropStale() {
+        Iterator<Entry> it = entries.iterator();
+        while (it.hasNext()) {
+            Entry e = it.next();
+            if (!e.droppable || e.started()) continue;
+            queuedBytes -= e.data.remaining();
+            droppedMessages++;
+            it.remove();
+        }
+    }
+
+    /**
+     * Writes as much as the channel accepts without blocking.
+     * @return true if the queue is now empty
+     */
+    public boolean flush(GatheringByteChannel channel) throws IOException {
+        while (!entries.isEmpty()) {
+            int n = 0;
+            for (Entry e : entries) {
+                gather[n++] = e.data;
+                if (n == MAX_GATHER) break;
+            }
+            long written = channel.write(gather, 0, n);
+            Arrays.fill(gather, 0, n, null);
+            queuedBytes -= written;
+            bytesWritten += written;
+            while (!entries.isEmpty() && !entries.peekFirst().data.hasRemaining()) entries.pollFirst();
+            if (written == 0) break; // socket buffer full: wait for OP_WRITE
+        }
+        return entries.isEmpty();
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public long getQueuedBytes() {
+        return queuedBytes;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getDroppedMessages() {
+        return droppedMessages;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+}
@@ -0,0 +1,123 @@
+package com.gameengine.net;
+
+import java.io.IOException;
+import java.net.PortUnreachableException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Outgoing side of the UDP transport with optional artificial loss, latency and jitter, for testing the
+ * reliability layer on loopback. With everything at zero (the default) datagrams are sent immediately.
+ * Delayed datagrams are copied and sent by flushDue() once their time comes; jitter can reorder them.
+ * Configured by NET_UDP_LOSS (0..1), NET_UDP_LATENCY_MS and NET_UDP_JITTER_MS. Thread-safe.
+ */
+public class PacketShim {
+    private static final class Delayed implements Comparable<Delayed> {
+        final long dueMillis;
+        final long order;
+        final ByteBuffer data;
+        final SocketAddress target;
+        Delayed(long dueMillis, long order, ByteBuffer data, SocketAddress target) {
+            this.dueMillis = dueMillis; this.order = order; this.data = data; this.target = target;
+        }
+        @Override public int compareTo(Delayed o) {
+            if (dueMillis != o.dueMillis) return Long.compare(dueMillis, o.dueMillis);
+            return Long.compare(order, o.order);
+        }
+    }
+
+    private final float loss;
+    private final int latencyMs;
+    private final int jitterMs;
+    private final Random random = new Random();
+    private final PriorityQueue<Delayed> delayed = new PriorityQueue<>();
+    private long nextOrder;
+    private long sent;
+    private long dropped;
+
+    public PacketShim(float loss, int latencyMs, int jitterMs) {
+        this.loss = Math.max(0f, Math.min(1f, loss));
+        this.latencyMs = Math.max(0, latencyMs);
+        this.jitterMs = Math.max(0, jitterMs);
+    }
+
+    public static PacketShim fromEnv() {
+        return new PacketShim(envFloat("NET_UDP_LOSS"), (int) envFloat("NET_UDP_LATENCY_MS"), (int) envFloat("NET_UDP_JITTER_MS"));
+    }
+
+    private static float envFloat(String name) {
+        String v = System.getenv(name);
+        if (v == null) return 0f;
+        try { return Float.parseFloat(v.trim()); } catch (NumberFormatException e) { return 0f; }
+    }
+
+    public boolean isActive() {
+        return loss > 0 || latencyMs > 0 || jitterMs > 0;
+    }
+
+    /**
+     * Sends data to target (null on a connected channel), or drops or delays it.
+     * The bytes are copied before this returns, so callers may reuse their buffer.
+     */
+    public synchronized void send(DatagramChannel channel, ByteBuffer data, SocketAddress target) throws IOException {
+        if (loss > 0 && random.nextFloat() < loss) {
+            dropped++;
+            return;
+        }
+        if (latencyMs == 0 && jitterMs == 0) {
+            write(channel, data, target);
+            return;
+        }
+        long delay = latencyMs + (jitterMs > 0 ? random.nextInt(jitterMs + 1) : 0);
+        ByteBuffer copy = ByteBuffer.allocate(data.remaining());
+        copy.put(data).flip();
+        delayed.add(new Delayed(System.currentTimeMillis() + delay, nextOrder++, copy, target));
+    }
+
+    /**
+     * Sends every delayed datagram whose time has come.
+     */
+    public synchronized void flushDue(DatagramChannel channel) throws IOException {
+        long now = System.currentTimeMillis();
+        Delayed d;
+        while ((d = delayed.peek()) != null && d.dueMillis <= now) {
+            delayed.poll();
+            write(channel, d.data, d.target);
+        }
+    }
+
+    /**
+     * Milliseconds until the next delayed datagram is due, or -1 if none is waiting.
+     */
+    public synchronized long millisUntilDue() {
+        Delayed d = delayed.peek();
+        return d == null ? -1 : Math.max(0, d.dueMillis - System.currentTimeMillis());
+    }
+
+    private void write(DatagramChannel channel, ByteBuffer data, SocketAddress target) throws IOException {
+        // a full socket buffer silently drops the datagram, like the network would
+        try {
+            if (target == null) channel.write(data);
+            else channel.send(data, target);
+            sent++;
+        } catch (PortUnreachableException e) {
+            // ICMP from an earlier datagram on a connected channel: nobody listening (yet)
+            dropped++;
+        }
+    }
+
+    public synchronized long getSent() {
+        return sent;
+    }
+
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    @Override public String toString() {
+        return String.format("loss=%.2f latency=%dms jitter=%dms", loss, latencyMs, jitterMs);
+    }
+}
@@ -0,0 +1,50 @@
+package com.gameengine.net;
+
+/**
+ * Player movement rules shared by ServerWorld and the client's own-player prediction (ClientPrediction),
+ * so both integrate an input the same way.
+ */
+public final class PlayerMovement {
+    private PlayerMovement() {}
+
+    public static final float SPEED = 200f;
+    public static final float WORLD_WIDTH = 800f;
+    public static final float WORLD_HEIGHT = 600f;
+
+    public static float moveX(float x, float vx, float dt) {
+        return clamp(x + vx * SPEED * dt, WORLD_WIDTH);
+    }
+
+    public static float moveY(float y, float vy, float dt) {
+        return clamp(y + vy * SPEED * dt, WORLD_HEIGHT);
+    }
+
+    /**
+     * Velocity in units per second for an input direction, zero along an axis where the player is pushing
+     * into the world edge (so clients extrapolating it don't run into the wall).
+     */
+    public static float velocityX(float x, float vx) {
+        return edgeVelocity(x, vx, WORLD_WIDTH);
+    }
+
+    public static float velocityY(float y, float vy) {
+        return edgeVelocity(y, vy, WORLD_HEIGHT);
+    }
+
+    public static float clampX(float x) {
+        return clamp(x, WORLD_WIDTH);
+    }
+
+    public static float clampY(float y) {
+        return clamp(y, WORLD_HEIGHT);
+    }
+
+    private static float edgeVelocity(float v, float dir, float max) {
+        if ((v <= 0 && dir < 0) || (v >= max && dir > 0)) return 0f;
+        return dir * SPEED;
+    }
+
+    private static float clamp(float v, float max) {
+        return v < 0 ? 0 : (v > max ? max : v);
+    }
+}
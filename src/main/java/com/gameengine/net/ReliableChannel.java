@@ -0,0 +1,126 @@
+package com.gameengine.net;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reliable, ordered control lines over UDP (UdpProtocol.PKT_CONTROL). The sending side keeps every line
+ * until the peer's cumulative CONTROL_ACK covers it and resends unacknowledged lines every RESEND_MS;
+ * the receiving side delivers lines in sequence order exactly once and buffers early arrivals.
+ * Every packet carries the session epoch the client chose for this session, so the ends can drop control
+ * traffic left over from an earlier session on the same address.
+ * Not thread-safe: each end drives it from its IO thread.
+ */
+public class ReliableChannel {
+    private static final int MAX_EARLY = 64;
+
+    private static final class Pending {
+        final int seq;
+        final byte[] packet;
+        long lastSentMillis;
+        Pending(int seq, byte[] packet) { this.seq = seq; this.packet = packet; }
+    }
+
+    private final int epoch;
+    private final ArrayDeque<Pending> unacked = new ArrayDeque<>();
+    private int nextSeq = 1;
+    // receive side: next seq to deliver, and lines that arrived ahead of it
+    private int expected = 1;
+    private final Map<Integer, String> early = new HashMap<>();
+    private long resends;
+
+    public ReliableChannel(int epoch) {
+        this.epoch = epoch;
+    }
+
+    public int getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Queues a line; it goes out with the next due() call.
+     */
+    public void send(String line) {
+        byte[] text = line.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer b = ByteBuffer.allocate(1 + 5 + 5 + text.length);
+        b.put(UdpProtocol.PKT_CONTROL);
+        WireProtocol.putVarint(b, epoch);
+        WireProtocol.putVarint(b, nextSeq);
+        b.put(text);
+        unacked.add(new Pending(nextSeq++, Arrays.copyOf(b.array(), b.position())));
+    }
+
+    /**
+     * Control packets due for (re)sending at nowMillis: never sent, or unacknowledged for RESEND_MS.
+     */
+    public List<ByteBuffer> due(long nowMillis) {
+        List<ByteBuffer> out = null;
+        for (Pending p : unacked) {
+            if (p.lastSentMillis != 0 && nowMillis - p.lastSentMillis < UdpProtocol.RESEND_MS) continue;
+            if (p.lastSentMillis != 0) resends++;
+            p.lastSentMillis = nowMillis;
+            if (out == null) out = new ArrayList<>();
+            out.add(ByteBuffer.wrap(p.packet));
+        }
+        return out == null ? Collections.emptyList() : out;
+    }
+
+    /**
+     * Handles a CONTROL_ACK payload (after the epoch): every line up to seq is delivered.
+     */
+    public void onAck(int seq) {
+        while (!unacked.isEmpty() && unacked.peekFirst().seq <= seq) unacked.removeFirst();
+    }
+
+    /**
+     * Handles a CONTROL payload (after the packet type byte and the epoch).
+     * @return lines now deliverable in order; empty for duplicates and early arrivals
+     */
+    public List<String> receive(ByteBuffer in) {
+        int seq = WireProtocol.getVarint(in);
+        byte[] text = new byte[in.remaining()];
+        in.get(text);
+        if (seq < expected) return Collections.emptyList();
+        if (seq > expected) {
+            if (seq - expected <= MAX_EARLY) early.put(seq, new String(text, StandardCharsets.UTF_8));
+            return Collections.emptyList();
+        }
+        List<String> lines = new ArrayList<>();
+        lines.add(new String(text, StandardCharsets.UTF_8));
+        expected++;
+        String next;
+        while ((next = early.remove(expected)) != null) {
+            lines.add(next);
+            expected++;
+        }
+        return lines;
+    }
+
+    /**
+     * CONTROL_ACK packet for everything delivered so far; sent after every CONTROL packet, duplicates included,
+     * so a lost ack is repaired by the peer's next resend.
+     */
+    public ByteBuffer ackPacket() {
+        ByteBuffer b = ByteBuffer.allocate(11);
+        b.put(UdpProtocol.PKT_CONTROL_ACK);
+        WireProtocol.putVarint(b, epoch);
+        WireProtocol.putVarint(b, expected - 1);
+        b.flip();
+        return b;
+    }
+
+    public int getUnackedCount() {
+        return unacked.size();
+    }
+
+    public long getResends() {
+        return resends;
+    }
+}
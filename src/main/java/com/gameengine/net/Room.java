@@ -0,0 +1,109 @@
+package com.gameengine.net;
+
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One match hosted by NioServer: its own ServerWorld ticked at a fixed rate on the server's shared
+ * simulation pool, its own snapshot publication and its own tick timing (TickStats).
+ * A fixed-rate task never overlaps itself, so each world is still only touched by one thread at a time.
+ */
+public class Room {
+    private static final double STATS_INTERVAL_SECONDS = 10.0;
+
+    /**
+     * World records taken at a send tick; immutable once published.
+     */
+    static final class Published {
+        final long timeMillis;
+        final Map<Integer, EntityRecord> world;
+        Published(long timeMillis, Map<Integer, EntityRecord> world) { this.timeMillis = timeMillis; this.world = world; }
+    }
+
+    private final String name;
+    private final ServerWorld world = new ServerWorld();
+    private final float tickRate;
+    private final float sendRate;
+    private final long periodNanos;
+    private final TickStats tickStats;
+    private final Runnable onPublish;
+    private ScheduledFuture<?> future;
+    private long nextTickNanos;
+    private float sendAccumulator;
+    volatile Published published;
+    // connections in this room; changed only under NioServer's room lock
+    int members;
+
+    Room(String name, float tickRate, float sendRate, Runnable onPublish) {
+        this.name = name;
+        this.tickRate = tickRate;
+        this.sendRate = sendRate;
+        this.periodNanos = (long) (1_000_000_000L / tickRate);
+        this.tickStats = new TickStats(periodNanos);
+        this.onPublish = onPublish;
+    }
+
+    void start(ScheduledExecutorService pool) {
+        nextTickNanos = System.nanoTime();
+        tickStats.reset();
+        future = pool.scheduleAtFixedRate(this::tick, 0, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void stop() {
+        if (future != null) future.cancel(false);
+    }
+
+    /**
+     * One fixed-dt step; every 1/sendRate seconds the world is published for the reactors to broadcast.
+     */
+    private void tick() {
+        long start = System.nanoTime();
+        long late = start - nextTickNanos;
+        try {
+            float dt = 1.0f / tickRate;
+            world.tick(dt);
+            sendAccumulator += dt;
+            float sendInterval = 1.0f / sendRate;
+            if (sendAccumulator >= sendInterval) {
+                sendAccumulator = Math.min(sendAccumulator - sendInterval, sendInterval);
+                published = new Published(System.currentTimeMillis(), world.snapshot());
+                onPublish.run();
+            }
+        } catch (RuntimeException e) {
+            // an escaping exception would cancel the schedule and freeze the room
+            e.printStackTrace();
+        }
+        long end = System.nanoTime();
+        synchronized (tickStats) {
+            tickStats.record(Math.max(0, late), end - start);
+            if (tickStats.getWindowSeconds() >= STATS_INTERVAL_SECONDS) {
+                System.out.println("[Room " + name + "] tick " + tickStats + " players=" + world.getPlayerCount()
+                    + " bullets=" + world.getBulletCount());
+                tickStats.reset();
+            }
+        }
+        // fixed-rate schedule: tick n is due at start + n * period, late ticks run back to back
+        nextTickNanos += periodNanos;
+    }
+
+    ServerWorld world() {
+        return world;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Tick timing of this room; lock on the returned object while reading it from another thread.
+     */
+    public TickStats getTickStats() {
+        return tickStats;
+    }
+
+    public int getPlayerCount() {
+        return world.getPlayerCount();
+    }
+}
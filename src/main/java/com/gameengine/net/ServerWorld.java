@@ -0,0 +1,229 @@
+package com.gameengine.net;
+
+import com.gameengine.core.SpatialHash;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Authoritative server simulation, owned by the simulation thread.
+ * The IO thread never touches world state: it posts joins, names, inputs and leaves to a lock-free queue
+ * that tick() drains before stepping, and reads the world only through the immutable records of snapshot().
+ */
+public class ServerWorld {
+    // Simple world state: a single entity moving with last input per client
+    private static class Player {
+        int id; float x, y; int hp = 100; float cd = 0; String name = "Player"; boolean dead = false;
+        float vx, vy, ax, ay; boolean fire;
+        int inputSeq; // newest input applied, echoed in snapshots for client-side reconciliation
+    }
+    private static final float BULLET_LIFE = 2.0f;
+    private static final float HIT_RADIUS = 20f;
+    // grid cells are at least the hit radius wide, so a 3x3 neighbourhood covers every possible hit
+    private static final float HIT_CELL = 32f;
+
+    private static final int EV_JOIN = 0, EV_LEAVE = 1, EV_NAME = 2, EV_INPUT = 3;
+
+    private static final class Event {
+        final int type;
+        final int playerId;
+        int seq;
+        float vx, vy, ax, ay;
+        boolean fire;
+        String name;
+        Event(int type, int playerId) { this.type = type; this.playerId = playerId; }
+    }
+
+    private final ConcurrentLinkedQueue<Event> events = new ConcurrentLinkedQueue<>();
+    private final Map<Integer, Player> players = new LinkedHashMap<>();
+    private int nextBulletId = 10000;
+
+    // bullets as parallel primitive arrays in spawn order; dead bullets are compacted out in one pass per step
+    private int bulletCount;
+    private int[] bulletIds = new int[64];
+    private int[] bulletOwners = new int[64];
+    private float[] bulletX = new float[64];
+    private float[] bulletY = new float[64];
+    private float[] bulletVx = new float[64];
+    private float[] bulletVy = new float[64];
+    private float[] bulletLife = new float[64];
+
+    // hit detection: players indexed in iteration order, so the grid's lowest matching index is the
+    // same player the old "first player in the map" scan would hit
+    private final SpatialHash hitGrid = new SpatialHash(HIT_CELL);
+    private Player[] hitPlayers = new Player[16];
+    private final SpatialHash.Candidate hitTest = this::hits;
+    private float hitX, hitY;
+    private int hitOwner;
+
+    // ---- called from the IO thread ----
+
+    public void postJoin(int playerId) {
+        events.add(new Event(EV_JOIN, playerId));
+    }
+
+    public void postLeave(int playerId) {
+        events.add(new Event(EV_LEAVE, playerId));
+    }
+
+    public void postName(int playerId, String name) {
+        Event e = new Event(EV_NAME, playerId);
+        e.name = name;
+        events.add(e);
+    }
+
+    /**
+     * @param seq the client's input sequence number, or 0 if it doesn't send one
+     */
+    public void postInput(int playerId, int seq, float vx, float vy, boolean fire, float ax, float ay) {
+        Event e = new Event(EV_INPUT, playerId);
+        e.seq = seq;
+        e.vx = vx; e.vy = vy; e.fire = fire; e.ax = ax; e.ay = ay;
+        events.add(e);
+    }
+
+    // ---- called from the simulation thread ----
+
+    /**
+     * Applies queued events, then advances the world by dt seconds.
+     */
+    public void tick(float dt) {
+        Event e;
+        while ((e = events.poll()) != null) apply(e);
+        step(dt);
+    }
+
+    private void apply(Event e) {
+        if (e.type == EV_JOIN) {
+            Player p = new Player();
+            p.id = e.playerId;
+            p.x = 400; p.y = 300;
+            players.put(p.id, p);
+            return;
+        }
+        if (e.type == EV_LEAVE) {
+            players.remove(e.playerId);
+            return;
+        }
+        Player p = players.get(e.playerId);
+        if (p == null) return;
+        if (e.type == EV_NAME) {
+            p.name = e.name;
+        } else {
+            p.vx = e.vx; p.vy = e.vy; p.ax = e.ax; p.ay = e.ay;
+            // several inputs can arrive within one tick: a shot in any of them counts
+            p.fire |= e.fire;
+            if (e.seq > p.inputSeq) p.inputSeq = e.seq;
+        }
+    }
+
+    private void step(float dt) {
+        // integrate players
+        for (Player p : players.values()) {
+            p.x = PlayerMovement.moveX(p.x, p.vx, dt);
+            p.y = PlayerMovement.moveY(p.y, p.vy, dt);
+            // shooting with cooldown
+            p.cd -= dt;
+            if (p.fire && p.cd <= 0) {
+                float bx = p.ax, by = p.ay;
+                float norm = (float)Math.sqrt(bx*bx + by*by);
+                if (norm < 0.0001f) { bx = 0f; by = -1f; norm = 1f; }
+                bx /= norm; by /= norm;
+                float bs = 400f;
+                addBullet(nextBulletId++, p.x, p.y, bx * bs, by * bs, p.id);
+                p.cd = 0.3f; // 300ms
+            }
+            p.fire = false; // consume
+        }
+        // integrate bullets and collisions
+        int n = players.size();
+        if (hitPlayers.length < n) hitPlayers = new Player[n * 2];
+        hitGrid.clear(n);
+        int i = 0;
+        for (Player p : players.values()) {
+            hitPlayers[i] = p;
+            hitGrid.insert(p.x, p.y, i);
+            i++;
+        }
+        int kept = 0;
+        for (int r = 0; r < bulletCount; r++) {
+            float x = bulletX[r] + bulletVx[r] * dt;
+            float y = bulletY[r] + bulletVy[r] * dt;
+            float life = bulletLife[r] - dt;
+            if (life <= 0) continue;
+            if (n > 0) {
+                hitX = x; hitY = y; hitOwner = bulletOwners[r];
+                int target = hitGrid.findFirst(x, y, hitTest);
+                if (target >= 0) {
+                    Player p = hitPlayers[target];
+                    p.hp = Math.max(0, p.hp - 10);
+                    if (p.hp == 0) p.dead = true;
+                    continue;
+                }
+            }
+            bulletIds[kept] = bulletIds[r];
+            bulletOwners[kept] = bulletOwners[r];
+            bulletX[kept] = x;
+            bulletY[kept] = y;
+            bulletVx[kept] = bulletVx[r];
+            bulletVy[kept] = bulletVy[r];
+            bulletLife[kept] = life;
+            kept++;
+        }
+        bulletCount = kept;
+        Arrays.fill(hitPlayers, 0, n, null);
+    }
+
+    private boolean hits(int item) {
+        Player p = hitPlayers[item];
+        if (p.id == hitOwner || p.hp <= 0) return false;
+        float dx = p.x - hitX, dy = p.y - hitY;
+        return dx*dx + dy*dy < HIT_RADIUS * HIT_RADIUS;
+    }
+
+    private void addBullet(int id, float x, float y, float vx, float vy, int owner) {
+        if (bulletCount == bulletIds.length) {
+            int cap = bulletCount * 2;
+            bulletIds = Arrays.copyOf(bulletIds, cap);
+            bulletOwners = Arrays.copyOf(bulletOwners, cap);
+            bulletX = Arrays.copyOf(bulletX, cap);
+            bulletY = Arrays.copyOf(bulletY, cap);
+            bulletVx = Arrays.copyOf(bulletVx, cap);
+            bulletVy = Arrays.copyOf(bulletVy, cap);
+            bulletLife = Arrays.copyOf(bulletLife, cap);
+        }
+        int i = bulletCount++;
+        bulletIds[i] = id;
+        bulletOwners[i] = owner;
+        bulletX[i] = x;
+        bulletY[i] = y;
+        bulletVx[i] = vx;
+        bulletVy[i] = vy;
+        bulletLife[i] = BULLET_LIFE;
+    }
+
+    /**
+     * Immutable records of every entity, players first; safe to hand to another thread.
+     */
+    public Map<Integer, EntityRecord> snapshot() {
+        Map<Integer, EntityRecord> world = new LinkedHashMap<>(Math.max(16, (players.size() + bulletCount) * 2));
+        for (Player p : players.values()) {
+            float vx = PlayerMovement.velocityX(p.x, p.vx), vy = PlayerMovement.velocityY(p.y, p.vy);
+            world.put(p.id, EntityRecord.player(p.id, p.x, p.y, vx, vy, p.hp, p.inputSeq, p.name));
+        }
+        for (int i = 0; i < bulletCount; i++) {
+            world.put(bulletIds[i], EntityRecord.bullet(bulletIds[i], bulletX[i], bulletY[i], bulletVx[i], bulletVy[i], bulletOwners[i]));
+        }
+        return world;
+    }
+
+    public int getPlayerCount() {
+        return players.size();
+    }
+
+    public int getBulletCount() {
+        return bulletCount;
+    }
+}
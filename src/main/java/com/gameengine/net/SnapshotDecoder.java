@@ -0,0 +1,183 @@
+package com.gameengine.net;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads binary frames written by SnapshotEncoder (see WireProtocol).
+ * Delta snapshots are rebuilt into full keyframes against the bases kept in this decoder,
+ * so one decoder instance must see every frame of a connection.
+ */
+public class SnapshotDecoder {
+    private byte[] nameBytes = new byte[64];
+    private final SnapshotHistory<Map<Integer, NetState.EntitySnapshot>> bases = new SnapshotHistory<>(WireProtocol.DELTA_HISTORY);
+    private int pendingAck = -1;
+    private boolean resyncNeeded;
+    private boolean resyncRequested;
+
+    /**
+     * Size of the frame at in.position() including its length prefix, or -1 if it is not fully buffered yet.
+     */
+    public static int completeFrameSize(ByteBuffer in) throws IOException {
+        if (in.remaining() < 4) return -1;
+        int len = in.getInt(in.position());
+        if (len < 1 || len > WireProtocol.MAX_FRAME_BYTES) {
+            throw new IOException("bad frame length " + len);
+        }
+        return in.remaining() >= 4 + len ? 4 + len : -1;
+    }
+
+    /**
+     * Decodes the complete frame at in.position() and advances past it.
+     * Player names seen in the frame are stored into {@code names} when it is non-null.
+     * @return the keyframe, or null for message types this decoder doesn't handle
+     */
+    public NetworkBuffer.Keyframe decode(ByteBuffer in, Map<Integer, String> names) throws IOException {
+        int start = in.position();
+        int len = in.getInt();
+        int end = start + 4 + len;
+        try {
+            byte type = in.get();
+            if (type == WireProtocol.MSG_KEYFRAME) return decodeKeyframe(in, names);
+            if (type == WireProtocol.MSG_SNAPSHOT) return decodeSnapshot(in, names);
+            return null;
+        } catch (RuntimeException e) {
+            throw new IOException("malformed frame", e);
+        } finally {
+            in.position(end);
+        }
+    }
+
+    private NetworkBuffer.Keyframe decodeKeyframe(ByteBuffer in, Map<Integer, String> names) throws IOException {
+        int version = in.get() & 0xFF;
+        if (version != WireProtocol.VERSION) throw new IOException("unsupported keyframe version " + version);
+        long t = WireProtocol.getVarlong(in);
+        int count = WireProtocol.getVarint(in);
+        Map<Integer, NetState.EntitySnapshot> map = new HashMap<>(Math.max(16, count * 2));
+        for (int i = 0; i < count; i++) {
+            byte kind = in.get();
+            int id = WireProtocol.getVarint(in);
+            float x = WireProtocol.dequantize(in.getShort());
+            float y = WireProtocol.dequantize(in.getShort());
+            float vx = WireProtocol.dequantizeVelocity(in.getShort());
+            float vy = WireProtocol.dequantizeVelocity(in.getShort());
+            NetState.EntitySnapshot e;
+            if (kind == WireProtocol.KIND_PLAYER) {
+                int hp = WireProtocol.getVarint(in);
+                int inputSeq = WireProtocol.getVarint(in);
+                String nm = readName(in);
+                e = new NetState.EntitySnapshot(id, x, y, NetState.KIND_PLAYER, hp, 0, inputSeq);
+                if (names != null && !nm.isEmpty()) names.put(id, nm);
+            } else if (kind == WireProtocol.KIND_BULLET) {
+                int owner = WireProtocol.getVarint(in);
+                e = new NetState.EntitySnapshot(id, x, y, NetState.KIND_BULLET, 0, owner);
+            } else {
+                throw new IOException("unknown entity kind " + kind);
+            }
+            e.vx = vx;
+            e.vy = vy;
+            map.put(id, e);
+        }
+        return new NetworkBuffer.Keyframe(t, map);
+    }
+
+    private NetworkBuffer.Keyframe decodeSnapshot(ByteBuffer in, Map<Integer, String> names) throws IOException {
+        int version = in.get() & 0xFF;
+        if (version != WireProtocol.VERSION) throw new IOException("unsupported snapshot version " + version);
+        int seq = WireProtocol.getVarint(in);
+        int baseSeq = WireProtocol.getVarint(in);
+        long t = WireProtocol.getVarlong(in);
+        Map<Integer, NetState.EntitySnapshot> base = null;
+        if (baseSeq != 0) {
+            base = bases.get(baseSeq);
+            if (base == null) {
+                // the base fell out of our history: drop deltas until a full snapshot arrives
+                resyncNeeded = true;
+                return null;
+            }
+        } else {
+            resyncNeeded = false;
+            resyncRequested = false;
+        }
+        // base maps are shared with keyframes already handed to NetworkBuffer: copy, never mutate
+        Map<Integer, NetState.EntitySnapshot> map = base == null ? new HashMap<>() : new HashMap<>(base);
+        int count = WireProtocol.getVarint(in);
+        for (int i = 0; i < count; i++) {
+            int flags = in.get() & 0xFF;
+            int id = WireProtocol.getVarint(in);
+            boolean spawn = (flags & WireProtocol.REC_SPAWN) != 0;
+            boolean bullet = (flags & WireProtocol.REC_BULLET) != 0;
+            NetState.EntitySnapshot old = spawn ? null : map.get(id);
+            if (!spawn && old == null) {
+                resyncNeeded = true;
+                return null;
+            }
+            float x = old == null ? 0 : old.x;
+            float y = old == null ? 0 : old.y;
+            float vx = old == null ? 0 : old.vx;
+            float vy = old == null ? 0 : old.vy;
+            int hp = old == null ? 0 : old.hp;
+            int owner = old == null ? 0 : old.owner;
+            int inputSeq = old == null ? 0 : old.inputSeq;
+            if (spawn || (flags & WireProtocol.REC_POS) != 0) {
+                x = WireProtocol.dequantize(in.getShort());
+                y = WireProtocol.dequantize(in.getShort());
+            }
+            if (spawn || (flags & WireProtocol.REC_VEL) != 0) {
+                vx = WireProtocol.dequantizeVelocity(in.getShort());
+                vy = WireProtocol.dequantizeVelocity(in.getShort());
+            }
+            if (!bullet) {
+                if (spawn || (flags & WireProtocol.REC_HP) != 0) hp = WireProtocol.getVarint(in);
+                if (spawn || (flags & WireProtocol.REC_INPUT) != 0) inputSeq = WireProtocol.getVarint(in);
+                if (spawn || (flags & WireProtocol.REC_NAME) != 0) {
+                    String nm = readName(in);
+                    if (names != null && !nm.isEmpty()) names.put(id, nm);
+                }
+            } else if (spawn || (flags & WireProtocol.REC_OWNER) != 0) {
+                owner = WireProtocol.getVarint(in);
+            }
+            char kind = bullet ? NetState.KIND_BULLET : NetState.KIND_PLAYER;
+            NetState.EntitySnapshot e = new NetState.EntitySnapshot(id, x, y, kind, hp, owner, inputSeq);
+            e.vx = vx;
+            e.vy = vy;
+            map.put(id, e);
+        }
+        int despawns = WireProtocol.getVarint(in);
+        for (int i = 0; i < despawns; i++) {
+            map.remove(WireProtocol.getVarint(in));
+        }
+        bases.put(seq, map);
+        pendingAck = seq;
+        return new NetworkBuffer.Keyframe(t, map);
+    }
+
+    /**
+     * Sequence to acknowledge for the last rebuilt snapshot, or -1 if there is nothing new to ack.
+     */
+    public int takeAck() {
+        int seq = pendingAck;
+        pendingAck = -1;
+        return seq;
+    }
+
+    /**
+     * True once per gap: the caller should ask the server for a full snapshot.
+     */
+    public boolean takeResyncRequest() {
+        if (!resyncNeeded || resyncRequested) return false;
+        resyncRequested = true;
+        return true;
+    }
+
+    private String readName(ByteBuffer in) {
+        int n = WireProtocol.getVarint(in);
+        if (n == 0) return "";
+        if (nameBytes.length < n) nameBytes = new byte[n];
+        in.get(nameBytes, 0, n);
+        return new String(nameBytes, 0, n, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,171 @@
+package com.gameengine.net;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes binary keyframe and snapshot frames (see WireProtocol). The backing buffer is reused between frames.
+ * Keyframes: begin(t, count); writePlayer/writeBullet per entity; finish() returns the frame ready to write.
+ * Snapshots: encodeSnapshot(...) diffs against an acknowledged base and returns the frame.
+ */
+public class SnapshotEncoder {
+    private ByteBuffer buf = ByteBuffer.allocate(4096);
+    private int declared;
+    private int written;
+    // reused per snapshot: changed records and their flags
+    private final List<EntityRecord> changed = new ArrayList<>();
+    private int[] changedFlags = new int[64];
+    private final List<Integer> despawned = new ArrayList<>();
+
+    /**
+     * Starts a keyframe holding exactly {@code count} entities.
+     */
+    public SnapshotEncoder begin(long serverTimeMillis, int count) {
+        buf.clear();
+        buf.putInt(0); // length, patched in finish()
+        buf.put(WireProtocol.MSG_KEYFRAME);
+        buf.put((byte) WireProtocol.VERSION);
+        WireProtocol.putVarlong(buf, serverTimeMillis);
+        WireProtocol.putVarint(buf, count);
+        declared = count;
+        written = 0;
+        return this;
+    }
+
+    public SnapshotEncoder writePlayer(int id, float x, float y, float vx, float vy, int hp, int inputSeq, String name) {
+        byte[] nm = name == null ? new byte[0] : name.getBytes(StandardCharsets.UTF_8);
+        ensure(28 + nm.length);
+        writeHeader(WireProtocol.KIND_PLAYER, id, x, y, vx, vy);
+        WireProtocol.putVarint(buf, hp);
+        WireProtocol.putVarint(buf, inputSeq);
+        WireProtocol.putVarint(buf, nm.length);
+        buf.put(nm);
+        written++;
+        return this;
+    }
+
+    public SnapshotEncoder writeBullet(int id, float x, float y, float vx, float vy, int owner) {
+        ensure(20);
+        writeHeader(WireProtocol.KIND_BULLET, id, x, y, vx, vy);
+        WireProtocol.putVarint(buf, owner);
+        written++;
+        return this;
+    }
+
+    private void writeHeader(byte kind, int id, float x, float y, float vx, float vy) {
+        buf.put(kind);
+        WireProtocol.putVarint(buf, id);
+        buf.putShort((short) WireProtocol.quantize(x));
+        buf.putShort((short) WireProtocol.quantize(y));
+        buf.putShort((short) WireProtocol.quantizeVelocity(vx));
+        buf.putShort((short) WireProtocol.quantizeVelocity(vy));
+    }
+
+    /**
+     * Encodes the entities in {@code current} as a snapshot. With a null base every entity is sent as a
+     * spawn record (full snapshot, base seq 0); otherwise only new entities, changed fields and despawns are sent.
+     */
+    public ByteBuffer encodeSnapshot(int seq, int baseSeq, long serverTimeMillis,
+                                     Map<Integer, EntityRecord> current, Map<Integer, EntityRecord> base) {
+        changed.clear();
+        despawned.clear();
+        if (changedFlags.length < current.size()) changedFlags = new int[current.size() * 2];
+        for (EntityRecord r : current.values()) {
+            EntityRecord old = base == null ? null : base.get(r.id);
+            int flags = r.isPlayer() ? 0 : WireProtocol.REC_BULLET;
+            if (old == null || old.kind != r.kind) {
+                flags |= WireProtocol.REC_SPAWN;
+            } else {
+                if (old.qx != r.qx || old.qy != r.qy) flags |= WireProtocol.REC_POS;
+                if (old.qvx != r.qvx || old.qvy != r.qvy) flags |= WireProtocol.REC_VEL;
+                if (r.isPlayer()) {
+                    if (old.hp != r.hp) flags |= WireProtocol.REC_HP;
+                    if (old.inputSeq != r.inputSeq) flags |= WireProtocol.REC_INPUT;
+                    if (!old.name.equals(r.name)) flags |= WireProtocol.REC_NAME;
+                } else if (old.owner != r.owner) {
+                    flags |= WireProtocol.REC_OWNER;
+                }
+                if ((flags & ~WireProtocol.REC_BULLET) == 0) continue; // unchanged
+            }
+            changedFlags[changed.size()] = flags;
+            changed.add(r);
+        }
+        if (base != null) {
+            for (Integer id : base.keySet()) {
+                if (!current.containsKey(id)) despawned.add(id);
+            }
+        }
+
+        buf.clear();
+        buf.putInt(0);
+        buf.put(WireProtocol.MSG_SNAPSHOT);
+        buf.put((byte) WireProtocol.VERSION);
+        WireProtocol.putVarint(buf, seq);
+        WireProtocol.putVarint(buf, base == null ? 0 : baseSeq);
+        WireProtocol.putVarlong(buf, serverTimeMillis);
+        WireProtocol.putVarint(buf, changed.size());
+        for (int i = 0; i < changed.size(); i++) {
+            writeRecord(changed.get(i), changedFlags[i]);
+        }
+        ensure(5 + despawned.size() * 5);
+        WireProtocol.putVarint(buf, despawned.size());
+        for (int i = 0; i < despawned.size(); i++) {
+            WireProtocol.putVarint(buf, despawned.get(i));
+        }
+        declared = written = 0;
+        return finish();
+    }
+
+    private void writeRecord(EntityRecord r, int flags) {
+        boolean spawn = (flags & WireProtocol.REC_SPAWN) != 0;
+        byte[] nm = null;
+        if (r.isPlayer() && (spawn || (flags & WireProtocol.REC_NAME) != 0)) {
+            nm = r.name.getBytes(StandardCharsets.UTF_8);
+        }
+        ensure(33 + (nm == null ? 0 : nm.length));
+        buf.put((byte) flags);
+        WireProtocol.putVarint(buf, r.id);
+        if (spawn || (flags & WireProtocol.REC_POS) != 0) {
+            buf.putShort((short) r.qx);
+            buf.putShort((short) r.qy);
+        }
+        if (spawn || (flags & WireProtocol.REC_VEL) != 0) {
+            buf.putShort((short) r.qvx);
+            buf.putShort((short) r.qvy);
+        }
+        if (r.isPlayer()) {
+            if (spawn || (flags & WireProtocol.REC_HP) != 0) WireProtocol.putVarint(buf, r.hp);
+            if (spawn || (flags & WireProtocol.REC_INPUT) != 0) WireProtocol.putVarint(buf, r.inputSeq);
+            if (nm != null) {
+                WireProtocol.putVarint(buf, nm.length);
+                buf.put(nm);
+            }
+        } else if (spawn || (flags & WireProtocol.REC_OWNER) != 0) {
+            WireProtocol.putVarint(buf, r.owner);
+        }
+    }
+
+    /**
+     * Patches the length prefix and returns a read-only view of the frame (valid until the next begin()).
+     */
+    public ByteBuffer finish() {
+        if (written != declared) {
+            throw new IllegalStateException("keyframe declared " + declared + " entities but wrote " + written);
+        }
+        buf.putInt(0, buf.position() - 4);
+        ByteBuffer out = buf.duplicate();
+        out.flip();
+        return out.asReadOnlyBuffer();
+    }
+
+    private void ensure(int more) {
+        if (buf.remaining() >= more) return;
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + more));
+        buf.flip();
+        bigger.put(buf);
+        buf = bigger;
+    }
+}
@@ -0,0 +1,65 @@
+package com.gameengine.net;
+
+/**
+ * Fixed-size ring of recent snapshots keyed by sequence number. Used by the server to remember
+ * what it sent each client, and by the client to keep delta bases.
+ * Also tracks the newest sequence the peer acknowledged.
+ */
+public class SnapshotHistory<T> {
+    private final int[] seqs;
+    private final Object[] items;
+    private int acked = -1;
+
+    public SnapshotHistory(int capacity) {
+        seqs = new int[Math.max(1, capacity)];
+        items = new Object[seqs.length];
+        java.util.Arrays.fill(seqs, -1);
+    }
+
+    public void put(int seq, T item) {
+        int i = Math.floorMod(seq, seqs.length);
+        seqs[i] = seq;
+        items[i] = item;
+    }
+
+    /**
+     * Snapshot for seq, or null if it was never stored or has been overwritten.
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int seq) {
+        if (seq < 0) return null;
+        int i = Math.floorMod(seq, seqs.length);
+        return seqs[i] == seq ? (T) items[i] : null;
+    }
+
+    /**
+     * Records an acknowledgement; older or duplicate acks are ignored.
+     */
+    public void ack(int seq) {
+        if (seq > acked) acked = seq;
+    }
+
+    /**
+     * Forgets the acknowledged base so the next snapshot is sent in full.
+     */
+    public void resetAck() {
+        acked = -1;
+    }
+
+    public int getAcked() {
+        return acked;
+    }
+
+    /**
+     * The acknowledged snapshot to delta against, or null when a full snapshot is needed.
+     */
+    public T ackedSnapshot() {
+        return get(acked);
+    }
+
+    public void clear() {
+        java.util.Arrays.fill(seqs, -1);
+        java.util.Arrays.fill(items, null);
+        acked = -1;
+    }
+}
@@ -0,0 +1,45 @@
+package com.gameengine.net;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded lock-free queue for exactly one producer thread and one consumer thread.
+ * Each index is written by one side only; lazySet publishes the slot before the index moves.
+ */
+final class SpscQueue<T> {
+    private final Object[] items;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // next slot to read, consumer only
+    private final AtomicLong tail = new AtomicLong(); // next slot to write, producer only
+
+    SpscQueue(int capacity) {
+        int cap = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        items = new Object[cap];
+        mask = cap - 1;
+    }
+
+    /**
+     * Producer side. @return false if the queue is full
+     */
+    boolean offer(T item) {
+        long t = tail.get();
+        if (t - head.get() == items.length) return false;
+        items[(int) t & mask] = item;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Consumer side. @return the oldest item, or null if empty
+     */
+    @SuppressWarnings("unchecked")
+    T poll() {
+        long h = head.get();
+        if (h == tail.get()) return null;
+        int i = (int) h & mask;
+        T item = (T) items[i];
+        items[i] = null;
+        head.lazySet(h + 1);
+        return item;
+    }
+}
@@ -0,0 +1,54 @@
+package com.gameengine.net;
+
+/**
+ * Timing of a fixed-rate simulation tick over a reporting window: how long ticks took,
+ * how late they started relative to their schedule, and how many ran longer than the tick period.
+ * Not synchronized: readers on other threads lock the instance, as Room does while recording.
+ */
+public class TickStats {
+    private final long periodNanos;
+    private long ticks;
+    private long totalNanos;
+    private long maxNanos;
+    private long maxLateNanos;
+    private long overruns;
+    private long windowStart = System.nanoTime();
+
+    public TickStats(long periodNanos) {
+        this.periodNanos = periodNanos;
+    }
+
+    /**
+     * @param lateNanos how long after its scheduled time the tick started
+     * @param durationNanos how long the tick ran
+     */
+    public void record(long lateNanos, long durationNanos) {
+        ticks++;
+        totalNanos += durationNanos;
+        if (durationNanos > maxNanos) maxNanos = durationNanos;
+        if (lateNanos > maxLateNanos) maxLateNanos = lateNanos;
+        if (durationNanos > periodNanos) overruns++;
+    }
+
+    public long getTicks() { return ticks; }
+    public long getOverruns() { return overruns; }
+    public double getAvgMillis() { return ticks == 0 ? 0 : totalNanos / 1_000_000.0 / ticks; }
+    public double getMaxMillis() { return maxNanos / 1_000_000.0; }
+    public double getMaxLateMillis() { return maxLateNanos / 1_000_000.0; }
+
+    public double getWindowSeconds() {
+        return (System.nanoTime() - windowStart) / 1_000_000_000.0;
+    }
+
+    public void reset() {
+        ticks = totalNanos = maxNanos = maxLateNanos = overruns = 0;
+        windowStart = System.nanoTime();
+    }
+
+    @Override
+    public String toString() {
+        double window = getWindowSeconds();
+        return String.format("ticks=%d (%.1f/s) avg=%.3fms max=%.3fms maxLate=%.3fms overruns=%d",
+            ticks, window > 0 ? ticks / window : 0.0, getAvgMillis(), getMaxMillis(), getMaxLateMillis(), overruns);
+    }
+}
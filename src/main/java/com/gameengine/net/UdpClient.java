@@ -0,0 +1,247 @@
+package com.gameengine.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * UDP client for NioServer's UdpReactor (see UdpProtocol). HELLO and the welcome travel on the reliable
+ * control channel; snapshots are taken newest-first and acknowledged in every INPUT packet, and each
+ * INPUT packet repeats the last NET_UDP_REDUNDANCY inputs so a lost datagram costs no input.
+ * Outgoing datagrams pass through a PacketShim (NET_UDP_LOSS, NET_UDP_LATENCY_MS, NET_UDP_JITTER_MS).
+ * A BYE from the server (its session ended, e.g. timed out during a stall) starts a new session with a new HELLO.
+ */
+public class UdpClient implements NetClient {
+    private final String host;
+    private final int port;
+    private final NetworkBuffer buffer;
+    private final PacketShim shim;
+    private final int redundancy;
+    private volatile boolean running = true;
+    private volatile int ownId = -1;
+    private final ConcurrentHashMap<Integer, String> names = new ConcurrentHashMap<>();
+
+    private Selector selector;
+    private volatile DatagramChannel channel;
+    private final ByteBuffer in = ByteBuffer.allocateDirect(UdpProtocol.MAX_PACKET_BYTES);
+    // IO thread only
+    private int epoch = (int) (System.currentTimeMillis() / 1000);
+    private ReliableChannel control = new ReliableChannel(epoch);
+    private SnapshotDecoder decoder = new SnapshotDecoder();
+    private int lastSnapshotSeq = 0;
+    private String hello;
+    private final ByteBuffer ping = ByteBuffer.allocate(32);
+    private volatile long rejoins;
+
+    // shared with the game thread, guarded by this
+    private final float[] inVx = new float[UdpProtocol.MAX_REDUNDANCY];
+    private final float[] inVy = new float[UdpProtocol.MAX_REDUNDANCY];
+    private final boolean[] inFire = new boolean[UdpProtocol.MAX_REDUNDANCY];
+    private final float[] inAx = new float[UdpProtocol.MAX_REDUNDANCY];
+    private final float[] inAy = new float[UdpProtocol.MAX_REDUNDANCY];
+    private int inputSeq = 0;
+    private int snapshotAck = 0;
+    private boolean resync;
+    private long lastSendMillis;
+    private final ByteBuffer out = ByteBuffer.allocate(16 + UdpProtocol.MAX_REDUNDANCY * UdpProtocol.INPUT_BYTES);
+
+    public UdpClient(String host, int port, NetworkBuffer buffer) {
+        this(host, port, buffer, PacketShim.fromEnv());
+    }
+
+    public UdpClient(String host, int port, NetworkBuffer buffer, PacketShim shim) {
+        this.host = host; this.port = port; this.buffer = buffer; this.shim = shim;
+        int n = UdpProtocol.DEFAULT_REDUNDANCY;
+        String env = System.getenv("NET_UDP_REDUNDANCY");
+        if (env != null) {
+            try { n = Integer.parseInt(env.trim()); } catch (NumberFormatException ignored) {}
+        }
+        this.redundancy = Math.max(1, Math.min(UdpProtocol.MAX_REDUNDANCY, n));
+    }
+
+    @Override public void stop() { running = false; if (selector != null) selector.wakeup(); }
+
+    @Override public void run() {
+        try {
+            selector = Selector.open();
+            DatagramChannel ch = DatagramChannel.open();
+            ch.configureBlocking(false);
+            ch.connect(new InetSocketAddress(host, port));
+            ch.register(selector, SelectionKey.OP_READ);
+            channel = ch;
+            String name = System.getenv("NETWORK_USERNAME");
+            if (name == null || name.isEmpty()) {
+                name = System.getProperty("network.username", "Player");
+            }
+            hello = "HELLO:" + name;
+            control.send(hello);
+            while (running) {
+                long wait = shim.millisUntilDue();
+                selector.select(wait < 0 ? 25 : Math.max(1, Math.min(25, wait)));
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) { it.next(); it.remove(); }
+                receiveAll();
+                long now = System.currentTimeMillis();
+                for (ByteBuffer packet : control.due(now)) send(packet);
+                ClockSync clock = buffer.getClock();
+                if (clock.pingDue(now)) {
+                    ping.clear();
+                    ping.put(UdpProtocol.PKT_PING);
+                    WireProtocol.putVarlong(ping, now);
+                    WireProtocol.putVarlong(ping, clock.getEchoServerMillis());
+                    WireProtocol.putVarlong(ping, clock.getEchoHoldMillis(now));
+                    ping.flip();
+                    send(ping);
+                }
+                synchronized (this) {
+                    // keeps the session alive and the snapshot ack fresh while the game sends no input
+                    if (now - lastSendMillis >= UdpProtocol.KEEPALIVE_MS) sendInputPacket(now);
+                }
+                shim.flushDue(channel);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            DatagramChannel ch = channel;
+            if (ch != null) {
+                // best effort, bypassing the shim; the server also times the session out
+                try { ch.write(ByteBuffer.wrap(new byte[] { UdpProtocol.PKT_BYE })); } catch (IOException ignored) {}
+                try { ch.close(); } catch (IOException ignored) {}
+            }
+            try { if (selector != null) selector.close(); } catch (IOException ignored) {}
+        }
+    }
+
+    private void receiveAll() throws IOException {
+        while (true) {
+            in.clear();
+            int n;
+            try {
+                n = channel.read(in);
+            } catch (java.net.PortUnreachableException e) {
+                continue; // server not up yet; HELLO is resent
+            }
+            if (n <= 0) return;
+            in.flip();
+            try {
+                handlePacket(in);
+            } catch (RuntimeException | IOException ignored) {
+                // truncated or corrupt datagram
+            }
+        }
+    }
+
+    private void handlePacket(ByteBuffer p) throws IOException {
+        byte type = p.get();
+        if (type == UdpProtocol.PKT_SNAPSHOT) {
+            int seq = WireProtocol.getVarint(p);
+            // latest wins: anything older than what we already have is stale
+            if (seq <= lastSnapshotSeq) return;
+            lastSnapshotSeq = seq;
+            NetworkBuffer.Keyframe kf = decoder.decode(p, names);
+            int ack = decoder.takeAck();
+            boolean wantResync = decoder.takeResyncRequest();
+            synchronized (this) {
+                if (kf != null) resync = false;
+                if (ack > 0) snapshotAck = ack;
+                if (wantResync) resync = true;
+            }
+            if (kf != null) buffer.push(kf);
+        } else if (type == UdpProtocol.PKT_CONTROL) {
+            if (WireProtocol.getVarint(p) != epoch) return; // from an earlier session
+            for (String line : control.receive(p)) handleControl(line);
+            send(control.ackPacket());
+        } else if (type == UdpProtocol.PKT_CONTROL_ACK) {
+            if (WireProtocol.getVarint(p) != epoch) return;
+            control.onAck(WireProtocol.getVarint(p));
+        } else if (type == UdpProtocol.PKT_BYE) {
+            // wait for the welcome of a rejoin already under way; a stale BYE after it costs one more
+            // rejoin, which the server accepts because the epoch is newer
+            if (ownId >= 0) rejoin();
+        } else if (type == UdpProtocol.PKT_PONG) {
+            long sent = WireProtocol.getVarlong(p);
+            long server = WireProtocol.getVarlong(p);
+            buffer.getClock().onPong(sent, server, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Starts a new server session under the next epoch: fresh control channel and delta bases, then HELLO again.
+     */
+    private void rejoin() {
+        ownId = -1;
+        control = new ReliableChannel(++epoch);
+        decoder = new SnapshotDecoder();
+        lastSnapshotSeq = 0;
+        synchronized (this) {
+            snapshotAck = 0;
+            resync = false;
+        }
+        control.send(hello);
+        rejoins++;
+    }
+
+    private void handleControl(String line) {
+        if (!line.startsWith("{\"type\":\"welcome\"")) return;
+        int at = line.indexOf("\"id\":");
+        if (at < 0) return;
+        int from = at + 5, to = from;
+        while (to < line.length() && (Character.isDigit(line.charAt(to)) || line.charAt(to) == '-')) to++;
+        try { ownId = Integer.parseInt(line.substring(from, to)); } catch (NumberFormatException ignored) {}
+    }
+
+    @Override public int sendInput(float vx, float vy, boolean fire, float ax, float ay) {
+        if (channel == null) return 0;
+        synchronized (this) {
+            int i = ++inputSeq % UdpProtocol.MAX_REDUNDANCY;
+            inVx[i] = vx; inVy[i] = vy; inFire[i] = fire; inAx[i] = ax; inAy[i] = ay;
+            sendInputPacket(System.currentTimeMillis());
+            return inputSeq;
+        }
+    }
+
+    /**
+     * INPUT packet with the current snapshot ack and the newest inputs; caller holds this.
+     */
+    private void sendInputPacket(long now) {
+        lastSendMillis = now;
+        out.clear();
+        out.put(UdpProtocol.PKT_INPUT);
+        WireProtocol.putVarint(out, snapshotAck);
+        out.put((byte) (resync ? UdpProtocol.INPUT_RESYNC : 0));
+        WireProtocol.putVarint(out, inputSeq);
+        int count = Math.min(redundancy, inputSeq);
+        out.put((byte) count);
+        for (int k = 0; k < count; k++) {
+            int i = (inputSeq - k) % UdpProtocol.MAX_REDUNDANCY;
+            out.putFloat(inVx[i]).putFloat(inVy[i]).put((byte) (inFire[i] ? 1 : 0)).putFloat(inAx[i]).putFloat(inAy[i]);
+        }
+        out.flip();
+        send(out);
+    }
+
+    private void send(ByteBuffer packet) {
+        try {
+            shim.send(channel, packet, null);
+        } catch (IOException ignored) { }
+    }
+
+    @Override public int getOwnId() { return ownId; }
+    @Override public float getRttMs() { return buffer.getClock().getRttMs(); }
+    @Override public String getName(int id) { return names.getOrDefault(id, ""); }
+
+    /**
+     * Times the server ended our session and we joined again.
+     */
+    public long getRejoins() { return rejoins; }
+
+    /**
+     * Outgoing datagrams sent and dropped by the shim.
+     */
+    public PacketShim getShim() { return shim; }
+}
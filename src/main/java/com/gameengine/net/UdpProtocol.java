@@ -0,0 +1,48 @@
+package com.gameengine.net;
+
+/**
+ * Datagram format of the UDP transport (UdpReactor on the server, UdpClient on the client).
+ * Every datagram starts with a u8 packet type:
+ *
+ * CONTROL: varint session epoch, varint control seq, UTF-8 text line. Reliable and ordered (ReliableChannel): the same lines as the
+ * TCP protocol ("HELLO:&lt;name&gt;[@&lt;room&gt;]" up, the JSON welcome down), resent until acknowledged.
+ * CONTROL_ACK: varint session epoch, varint highest control seq delivered in order.
+ * The epoch is chosen by the client per session (seconds since 1970 at start, +1 on every rejoin): a CONTROL
+ * packet with a newer epoch than the address's session replaces that session, and either end ignores
+ * control packets of any other epoch, so stale datagrams of an earlier session can't ack or deliver lines.
+ * INPUT (client to server): varint newest snapshot seq decoded (0 = none), u8 flags (INPUT_RESYNC),
+ * varint newest input seq, u8 count, then count inputs newest first (seqs newest, newest-1, ...), each
+ * f32 vx, f32 vy, u8 fire, f32 ax, f32 ay. Unreliable: every packet repeats the last NET_UDP_REDUNDANCY
+ * inputs and the server applies only seqs it hasn't seen. A packet with count 0 is a keepalive.
+ * SNAPSHOT (server to client): varint snapshot seq, then one binary snapshot frame (WireProtocol).
+ * Unreliable and sequenced: the client drops any snapshot older than the newest it has seen, and deltas are
+ * only ever based on a snapshot the client acknowledged in an INPUT packet.
+ * PING (client to server): varint t0, varint echoed server ms, varint hold ms; PONG: varint t0, varint server ms.
+ * Unreliable; same clock sync exchange as the TCP "PING:" line (see WireProtocol, ClockSync).
+ * BYE: either side is leaving; best effort, sessions also time out after SESSION_TIMEOUT_MS. The server also
+ * answers any non-CONTROL packet from an address without a session (e.g. one it timed out) with BYE, and a
+ * client getting BYE starts a new session (next epoch) with a fresh HELLO. A stale BYE that arrives after the
+ * new welcome only costs one more rejoin: the server replaces the session on the newer epoch's HELLO.
+ */
+public final class UdpProtocol {
+    private UdpProtocol() {}
+
+    public static final byte PKT_CONTROL = 1;
+    public static final byte PKT_CONTROL_ACK = 2;
+    public static final byte PKT_INPUT = 3;
+    public static final byte PKT_SNAPSHOT = 4;
+    public static final byte PKT_BYE = 5;
+    public static final byte PKT_PING = 6;
+    public static final byte PKT_PONG = 7;
+
+    public static final int INPUT_RESYNC = 0x01;
+    public static final int INPUT_BYTES = 17;
+    public static final int MAX_REDUNDANCY = 16;
+    public static final int DEFAULT_REDUNDANCY = 3;
+
+    // largest payload of one IPv4 datagram; bigger snapshots are not sent
+    public static final int MAX_PACKET_BYTES = 65507;
+    public static final long RESEND_MS = 200;
+    public static final long KEEPALIVE_MS = 100;
+    public static final long SESSION_TIMEOUT_MS = 5000;
+}
@@ -0,0 +1,307 @@
+package com.gameengine.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * UDP transport of NioServer: one thread owning a DatagramChannel and every UDP session (see UdpProtocol).
+ * A session is created by the first CONTROL packet from a new address, joins its Room on the HELLO line
+ * and ends on BYE or after SESSION_TIMEOUT_MS of silence; later packets from an ended session are answered
+ * with BYE so the client rejoins. Snapshots are always binary deltas against
+ * the last snapshot the client acknowledged in its INPUT packets, so a lost snapshot is simply superseded.
+ */
+class UdpReactor implements Runnable {
+    private static final class Session {
+        final SocketAddress address;
+        final int id;
+        final ReliableChannel control;
+        final SnapshotHistory<Map<Integer, EntityRecord>> history = new SnapshotHistory<>(WireProtocol.DELTA_HISTORY);
+        Room room;
+        int lastInputSeq;
+        long lastHeardMillis;
+        boolean oversizeLogged;
+        Session(SocketAddress address, int id, int epoch) {
+            this.address = address; this.id = id; this.control = new ReliableChannel(epoch);
+        }
+    }
+
+    private final NioServer owner;
+    private final int port;
+    private final PacketShim shim;
+    private final Selector selector;
+    private DatagramChannel channel;
+    private volatile boolean running = true;
+
+    private final ByteBuffer in = ByteBuffer.allocateDirect(UdpProtocol.MAX_PACKET_BYTES);
+    private final ByteBuffer out = ByteBuffer.allocateDirect(UdpProtocol.MAX_PACKET_BYTES);
+    private final ByteBuffer bye = ByteBuffer.allocate(1).put(0, UdpProtocol.PKT_BYE);
+    private final Map<SocketAddress, Session> sessions = new HashMap<>();
+    private final SnapshotEncoder encoder = new SnapshotEncoder();
+    private int snapshotSeq = 0;
+    private final InterestGrid interest;
+    // sessions per room, and the last snapshot broadcast per room
+    private final Map<Room, Set<Session>> roomMembers = new LinkedHashMap<>();
+    private final Map<Room, Room.Published> lastBroadcast = new HashMap<>();
+    private long nextHousekeeping;
+    private volatile int sessionCount;
+    private volatile long bytesOut;
+    private volatile long oversizedSnapshots;
+
+    UdpReactor(NioServer owner, int port, PacketShim shim) throws IOException {
+        this.owner = owner;
+        this.port = port;
+        this.shim = shim;
+        this.selector = Selector.open();
+        this.interest = owner.aoiRadius > 0 ? new InterestGrid(owner.aoiRadius) : null;
+    }
+
+    void wakeup() {
+        selector.wakeup();
+    }
+
+    void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    int getSessionCount() {
+        return sessionCount;
+    }
+
+    long getBytesOut() {
+        return bytesOut;
+    }
+
+    long getOversizedSnapshots() {
+        return oversizedSnapshots;
+    }
+
+    @Override public void run() {
+        try {
+            channel = DatagramChannel.open();
+            channel.configureBlocking(false);
+            channel.bind(new InetSocketAddress(port));
+            channel.register(selector, SelectionKey.OP_READ);
+            System.out.println("[NioServer] udp on port " + port + (shim.isActive() ? " shim " + shim : ""));
+            while (running) {
+                long wait = shim.millisUntilDue();
+                selector.select(wait < 0 ? 50 : Math.max(1, Math.min(50, wait)));
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) { it.next(); it.remove(); }
+                receiveAll();
+                for (Room room : new ArrayList<>(roomMembers.keySet())) {
+                    Room.Published snap = room.published;
+                    if (snap == null || snap == lastBroadcast.get(room)) continue;
+                    lastBroadcast.put(room, snap);
+                    broadcast(snap, new ArrayList<>(roomMembers.get(room)));
+                }
+                long now = System.currentTimeMillis();
+                if (now >= nextHousekeeping) {
+                    nextHousekeeping = now + 20;
+                    housekeeping(now);
+                }
+                shim.flushDue(channel);
+                sessionCount = sessions.size();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            for (Session s : new ArrayList<>(sessions.values())) end(s);
+            try { if (channel != null) channel.close(); } catch (IOException ignored) {}
+            try { selector.close(); } catch (IOException ignored) {}
+        }
+    }
+
+    private void receiveAll() throws IOException {
+        while (true) {
+            in.clear();
+            SocketAddress from = channel.receive(in);
+            if (from == null) return;
+            in.flip();
+            try {
+                handlePacket(from, in);
+            } catch (RuntimeException ignored) {
+                // truncated or garbage datagram
+            }
+        }
+    }
+
+    private void handlePacket(SocketAddress from, ByteBuffer p) throws IOException {
+        if (!p.hasRemaining()) return;
+        byte type = p.get();
+        int epoch = 0;
+        if (type == UdpProtocol.PKT_CONTROL || type == UdpProtocol.PKT_CONTROL_ACK) epoch = WireProtocol.getVarint(p);
+        Session s = sessions.get(from);
+        if (s != null && type == UdpProtocol.PKT_CONTROL && epoch != s.control.getEpoch()) {
+            // older epoch: a late datagram of a replaced session; newer: the client started over
+            if (epoch - s.control.getEpoch() < 0) return;
+            end(s);
+            s = null;
+        }
+        if (s == null) {
+            if (type != UdpProtocol.PKT_CONTROL) {
+                // no session (never joined, or timed out): tell the client to start over
+                if (type != UdpProtocol.PKT_BYE) {
+                    bye.clear();
+                    bytesOut += bye.remaining();
+                    shim.send(channel, bye, from);
+                }
+                return;
+            }
+            s = new Session(from, owner.nextPlayerId(), epoch);
+            sessions.put(from, s);
+            s.control.send("{\"type\":\"welcome\",\"id\":" + s.id + "}");
+        }
+        s.lastHeardMillis = System.currentTimeMillis();
+        switch (type) {
+            case UdpProtocol.PKT_CONTROL:
+                for (String line : s.control.receive(p)) handleControl(s, line);
+                sendPacket(s, s.control.ackPacket());
+                break;
+            case UdpProtocol.PKT_CONTROL_ACK:
+                if (epoch == s.control.getEpoch()) s.control.onAck(WireProtocol.getVarint(p));
+                break;
+            case UdpProtocol.PKT_INPUT:
+                handleInput(s, p);
+                break;
+            case UdpProtocol.PKT_PING:
+                handlePing(s, p);
+                break;
+            case UdpProtocol.PKT_BYE:
+                end(s);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void handleControl(Session s, String line) {
+        if (!line.startsWith("HELLO:") || s.room != null) return;
+        // HELLO:<name> or HELLO:<name>@<room>, as on TCP
+        String nm = line.substring("HELLO:".length()).trim();
+        String requestedRoom = null;
+        int at = nm.lastIndexOf('@');
+        if (at >= 0) {
+            requestedRoom = nm.substring(at + 1).trim();
+            nm = nm.substring(0, at).trim();
+        }
+        s.room = owner.joinRoom(requestedRoom);
+        roomMembers.computeIfAbsent(s.room, r -> new LinkedHashSet<>()).add(s);
+        s.room.world().postJoin(s.id);
+        if (nm.length() > 0) s.room.world().postName(s.id, nm);
+    }
+
+    private void handleInput(Session s, ByteBuffer p) {
+        int ack = WireProtocol.getVarint(p);
+        int flags = p.get() & 0xFF;
+        int newest = WireProtocol.getVarint(p);
+        int count = Math.min(p.get() & 0xFF, UdpProtocol.MAX_REDUNDANCY);
+        if ((flags & UdpProtocol.INPUT_RESYNC) != 0) s.history.resetAck();
+        else if (ack > 0) s.history.ack(ack);
+        // inputs come newest first; apply the unseen ones oldest first
+        int unseen = Math.min(count, newest - s.lastInputSeq);
+        if (unseen <= 0 || s.room == null) return;
+        ServerWorld world = s.room.world();
+        int base = p.position();
+        for (int i = unseen - 1; i >= 0; i--) {
+            p.position(base + i * UdpProtocol.INPUT_BYTES);
+            float vx = p.getFloat(), vy = p.getFloat();
+            boolean fire = p.get() != 0;
+            float ax = p.getFloat(), ay = p.getFloat();
+            world.postInput(s.id, newest - i, vx, vy, fire, ax, ay);
+        }
+        s.lastInputSeq = newest;
+    }
+
+    private void handlePing(Session s, ByteBuffer p) throws IOException {
+        long sent = WireProtocol.getVarlong(p);
+        long echo = WireProtocol.getVarlong(p);
+        long hold = WireProtocol.getVarlong(p);
+        long now = System.currentTimeMillis();
+        ByteBuffer pong = ByteBuffer.allocate(24);
+        pong.put(UdpProtocol.PKT_PONG);
+        WireProtocol.putVarlong(pong, sent);
+        WireProtocol.putVarlong(pong, now);
+        pong.flip();
+        sendPacket(s, pong);
+        if (echo > 0 && now - echo - hold >= 0) owner.recordRtt(s.id, now - echo - hold);
+    }
+
+    private void broadcast(Room.Published snap, List<Session> targets) throws IOException {
+        Map<Integer, EntityRecord> world = snap.world;
+        if (interest != null) interest.rebuild(world);
+        int seq = ++snapshotSeq;
+        for (Session s : targets) {
+            if (!world.containsKey(s.id)) continue;
+            Map<Integer, EntityRecord> view = interest == null ? world : interest.relevantTo(s.id);
+            ByteBuffer frame = encoder.encodeSnapshot(seq, s.history.getAcked(), snap.timeMillis, view, s.history.ackedSnapshot());
+            if (frame.remaining() + 6 > out.capacity()) {
+                // doesn't fit one datagram: not sent, so never a delta base
+                oversizedSnapshots++;
+                if (!s.oversizeLogged) {
+                    s.oversizeLogged = true;
+                    System.out.println("[NioServer] udp snapshot for player " + s.id + " is " + frame.remaining()
+                            + " bytes, over one datagram; dropping such snapshots (NET_AOI_RADIUS limits them)");
+                }
+                continue;
+            }
+            s.history.put(seq, view);
+            out.clear();
+            out.put(UdpProtocol.PKT_SNAPSHOT);
+            WireProtocol.putVarint(out, seq);
+            out.put(frame);
+            out.flip();
+            bytesOut += out.remaining();
+            shim.send(channel, out, s.address);
+        }
+    }
+
+    /**
+     * Resends unacknowledged control lines and ends silent sessions.
+     */
+    private void housekeeping(long now) throws IOException {
+        for (Session s : new ArrayList<>(sessions.values())) {
+            if (now - s.lastHeardMillis > UdpProtocol.SESSION_TIMEOUT_MS) {
+                end(s);
+                continue;
+            }
+            for (ByteBuffer packet : s.control.due(now)) sendPacket(s, packet);
+        }
+    }
+
+    private void sendPacket(Session s, ByteBuffer packet) throws IOException {
+        bytesOut += packet.remaining();
+        shim.send(channel, packet, s.address);
+    }
+
+    private void end(Session s) {
+        sessions.remove(s.address);
+        owner.forgetRtt(s.id);
+        Room room = s.room;
+        if (room == null) return;
+        room.world().postLeave(s.id);
+        Set<Session> members = roomMembers.get(room);
+        if (members != null) {
+            members.remove(s);
+            if (members.isEmpty()) {
+                roomMembers.remove(room);
+                lastBroadcast.remove(room);
+            }
+        }
+        owner.leaveRoom(room);
+        s.room = null;
+    }
+}
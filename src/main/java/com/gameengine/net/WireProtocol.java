@@ -0,0 +1,147 @@
+package com.gameengine.net;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Binary wire format shared by NioServer and NioClient.
+ *
+ * Negotiation: the client sends "PROTO:&lt;version&gt;" before HELLO. A server that speaks that
+ * version answers with a JSON line {"type":"proto","enc":"bin","v":&lt;version&gt;} and every
+ * server-to-client message after that line is a binary frame. Servers that don't answer
+ * keep sending JSON lines, so both ends fall back to the text protocol.
+ *
+ * Frame: int32 length (bytes after this field, big-endian), u8 message type, payload.
+ * Keyframe payload: u8 version, varint server time (ms), varint entity count, then per entity
+ * u8 kind, varint id, u16 x, u16 y, s16 vx, s16 vy and a kind-specific tail
+ * (player: varint hp, varint input seq, varint name length, UTF-8 name; bullet: varint owner id).
+ * The input seq is the newest client input the server applied to that player (see ClientPrediction).
+ * Velocities (units/s, 1/16 resolution) let the client extrapolate past the newest keyframe (NetworkBuffer).
+ *
+ * Snapshot payload (delta against a snapshot the client acknowledged with "ACK:&lt;seq&gt;"):
+ * u8 version, varint seq, varint base seq (0 = full snapshot), varint server time (ms),
+ * varint record count, records, varint despawn count, varint ids.
+ * A record is u8 flags, varint id, then only the fields its flags name (REC_* below);
+ * REC_SPAWN records carry every field of their kind. A client missing the base sends "RESYNC"
+ * and the server answers with a full snapshot.
+ *
+ * Clock sync (both encodings): the client sends "PING:&lt;t0&gt;[,&lt;echo&gt;,&lt;hold&gt;]" with its local time, the
+ * server time of the last pong it got and how long it held that pong. The server answers a JSON client
+ * with {"type":"pong","c":&lt;t0&gt;,"s":&lt;server ms&gt;} and a binary client with a MSG_PONG frame
+ * (varint t0, varint server ms), and measures its own RTT as now - echo - hold (see ClockSync).
+ */
+public final class WireProtocol {
+    private WireProtocol() {}
+
+    public static final int VERSION = 3;
+    public static final String PROTO_PREFIX = "PROTO:";
+
+    public static final byte MSG_KEYFRAME = 1;
+    public static final byte MSG_SNAPSHOT = 2;
+    public static final byte MSG_PONG = 3;
+
+    public static final String PING_PREFIX = "PING:";
+
+    public static final String ACK_PREFIX = "ACK:";
+    public static final String RESYNC = "RESYNC";
+    // snapshots remembered per connection; an ack older than this forces a full snapshot
+    public static final int DELTA_HISTORY = 32;
+
+    // snapshot record flags
+    public static final int REC_BULLET = 0x01; // kind; clear = player
+    public static final int REC_SPAWN = 0x02;  // new entity, all fields follow
+    public static final int REC_POS = 0x04;
+    public static final int REC_HP = 0x08;
+    public static final int REC_NAME = 0x10;
+    public static final int REC_OWNER = 0x20;
+    public static final int REC_INPUT = 0x40; // player input seq
+    public static final int REC_VEL = 0x80;   // velocity
+
+    public static final byte KIND_PLAYER = 0;
+    public static final byte KIND_BULLET = 1;
+
+    public static final int HEADER_BYTES = 5;          // int32 length + u8 type
+    public static final int MAX_FRAME_BYTES = 1 << 22; // reject corrupt lengths
+
+    // positions are quantized to 1/16 unit over [-1024, 3072)
+    public static final float POS_MIN = -1024f;
+    public static final float POS_SCALE = 16f;
+    // velocities are quantized to 1/16 unit per second, signed 16 bits (+-2048 units/s)
+    public static final float VEL_SCALE = 16f;
+
+    /**
+     * Handshake reply line the server sends before switching to binary frames.
+     */
+    public static String protoAckLine(int version) {
+        return "{\"type\":\"proto\",\"enc\":\"bin\",\"v\":" + version + "}\n";
+    }
+
+    public static String pongLine(long clientMillis, long serverMillis) {
+        return "{\"type\":\"pong\",\"c\":" + clientMillis + ",\"s\":" + serverMillis + "}\n";
+    }
+
+    public static ByteBuffer pongFrame(long clientMillis, long serverMillis) {
+        ByteBuffer b = ByteBuffer.allocate(HEADER_BYTES + 20);
+        b.putInt(0);
+        b.put(MSG_PONG);
+        putVarlong(b, clientMillis);
+        putVarlong(b, serverMillis);
+        b.putInt(0, b.position() - 4);
+        b.flip();
+        return b;
+    }
+
+    public static int quantize(float v) {
+        int q = Math.round((v - POS_MIN) * POS_SCALE);
+        return q < 0 ? 0 : (q > 0xFFFF ? 0xFFFF : q);
+    }
+
+    public static float dequantize(int q) {
+        return (q & 0xFFFF) / POS_SCALE + POS_MIN;
+    }
+
+    public static int quantizeVelocity(float v) {
+        int q = Math.round(v * VEL_SCALE);
+        return q < Short.MIN_VALUE ? Short.MIN_VALUE : (q > Short.MAX_VALUE ? Short.MAX_VALUE : q);
+    }
+
+    public static float dequantizeVelocity(short q) {
+        return q / VEL_SCALE;
+    }
+
+    public static void putVarint(ByteBuffer buf, int value) {
+        // unsigned LEB128; negative values take 5 bytes
+        while ((value & ~0x7F) != 0) {
+            buf.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buf.put((byte) value);
+    }
+
+    public static void putVarlong(ByteBuffer buf, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buf.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buf.put((byte) value);
+    }
+
+    public static int getVarint(ByteBuffer buf) {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buf.get();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+        }
+        throw new IllegalArgumentException("varint too long");
+    }
+
+    public static long getVarlong(ByteBuffer buf) {
+        long result = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = buf.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+        }
+        throw new IllegalArgumentException("varlong too long");
+    }
+}
@@ -164,10 +164,10 @@ public class RecordingService {
         boolean first = true;
         int count = 0;
         for (GameObject obj : objs) {
-            TransformComponent tc = obj.getComponent(TransformComponent.class);
+            TransformComponent tc = obj.getComponent(TransformComponent.TYPE);
             if (tc == null) continue;
-            float x = tc.getPosition().x;
-            float y = tc.getPosition().y;
+            float x = tc.getX();
+            float y = tc.getY();
             if (!first) sb.append(',');
                         sb.append('{')
                             .append("\"id\":\"").append(obj.getId()).append("\",")
@@ -176,13 +176,13 @@ public class RecordingService {
               .append("\"y\":").append(qfmt.format(y));
 
             // If this object has a projectile component, record its shooter info
-            ProjectileComponent pcomp = obj.getComponent(ProjectileComponent.class);
+            ProjectileComponent pcomp = obj.getComponent(ProjectileComponent.TYPE);
             if (pcomp != null && pcomp.getShooter() != null) {
                 sb.append(',').append("\"ownerId\":\"").append(pcomp.getShooter().getId()).append("\"");
                 sb.append(',').append("\"ownerName\":\"").append(pcomp.getShooter().getName()).append("\"");
             }
 
-            com.gameengine.components.RenderComponent rc = obj.getComponent(com.gameengine.components.RenderComponent.class);
+            com.gameengine.components.RenderComponent rc = obj.getComponent(com.gameengine.components.RenderComponent.TYPE);
             if (rc != null) {
                 com.gameengine.components.RenderComponent.RenderType rt = rc.getRenderType();
                 com.gameengine.math.Vector2 sz = rc.getSize();
@@ -201,7 +201,7 @@ public class RecordingService {
             }
 
                         // velocity / rotation
-                        PhysicsComponent ph = obj.getComponent(PhysicsComponent.class);
+                        PhysicsComponent ph = obj.getComponent(PhysicsComponent.TYPE);
                         if (ph != null) {
                                 Vector2 v = ph.getVelocity();
                                 sb.append(',').append("\"vx\":").append(qfmt.format(v.x)).append(',')
@@ -234,10 +234,10 @@ public class RecordingService {
         boolean first = true;
         int count = 0;
         for (GameObject obj : objs) {
-            TransformComponent tc = obj.getComponent(TransformComponent.class);
+            TransformComponent tc = obj.getComponent(TransformComponent.TYPE);
             if (tc == null) continue;
-            float x = tc.getPosition().x;
-            float y = tc.getPosition().y;
+            float x = tc.getX();
+            float y = tc.getY();
             if (!first) sb.append(',');
                         sb.append('{')
                             .append("\"id\":\"").append(obj.getId()).append("\",")
@@ -246,13 +246,13 @@ public class RecordingService {
               .append("\"y\":").append(qfmt.format(y));
 
             // If this object has a projectile component, record its shooter info
-            ProjectileComponent pcomp2 = obj.getComponent(ProjectileComponent.class);
+            ProjectileComponent pcomp2 = obj.getComponent(ProjectileComponent.TYPE);
             if (pcomp2 != null && pcomp2.getShooter() != null) {
                 sb.append(',').append("\"ownerId\":\"").append(pcomp2.getShooter().getId()).append("\"");
                 sb.append(',').append("\"ownerName\":\"").append(pcomp2.getShooter().getName()).append("\"");
             }
 
-            RenderComponent rc = obj.getComponent(RenderComponent.class);
+            RenderComponent rc = obj.getComponent(RenderComponent.TYPE);
             if (rc != null) {
                 RenderComponent.RenderType rt = rc.getRenderType();
                 Vector2 sz = rc.getSize();
@@ -270,7 +270,7 @@ public class RecordingService {
                 sb.append(',').append("\"rt\":\"CUSTOM\"");
             }
 
-            PhysicsComponent ph = obj.getComponent(PhysicsComponent.class);
+            PhysicsComponent ph = obj.getComponent(PhysicsComponent.TYPE);
             if (ph != null) {
                 Vector2 v = ph.getVelocity();
                 sb.append(',').append("\"vx\":").append(qfmt.format(v.x)).append(',')
@@ -290,22 +290,22 @@ public class RecordingService {
 
     private void writeSpawn(GameObject obj) {
         try {
-            TransformComponent tc = obj.getComponent(TransformComponent.class);
+            TransformComponent tc = obj.getComponent(TransformComponent.TYPE);
             if (tc == null) return;
             StringBuilder sb = new StringBuilder();
             sb.append("{\"type\":\"spawn\",\"t\":").append(qfmt.format(elapsed)).append(",");
             sb.append("\"id\":\"").append(obj.getId()).append("\",");
             sb.append("\"name\":\"").append(obj.getName()).append("\",");
-            sb.append("\"x\":").append(qfmt.format(tc.getPosition().x)).append(',');
-            sb.append("\"y\":").append(qfmt.format(tc.getPosition().y));
+            sb.append("\"x\":").append(qfmt.format(tc.getX())).append(',');
+            sb.append("\"y\":").append(qfmt.format(tc.getY()));
 
             // projectile owner info at spawn if applicable
-            ProjectileComponent spawnP = obj.getComponent(ProjectileComponent.class);
+            ProjectileComponent spawnP = obj.getComponent(ProjectileComponent.TYPE);
             if (spawnP != null && spawnP.getShooter() != null) {
                 sb.append(',').append("\"ownerId\":\"").append(spawnP.getShooter().getId()).append("\"");
                 sb.append(',').append("\"ownerName\":\"").append(spawnP.getShooter().getName()).append("\"");
             }
-            RenderComponent rc = obj.getComponent(RenderComponent.class);
+            RenderComponent rc = obj.getComponent(RenderComponent.TYPE);
             if (rc != null) {
                 Vector2 sz = rc.getSize();
                 RenderComponent.RenderType rt = rc.getRenderType();
@@ -317,7 +317,7 @@ public class RecordingService {
                   .append(qfmt.format(col.b)).append(',').append(qfmt.format(col.a)).append(']');
                 sb.append(',').append("\"rot\":").append(qfmt.format(rc.getRotation()));
             }
-            PhysicsComponent ph = obj.getComponent(PhysicsComponent.class);
+            PhysicsComponent ph = obj.getComponent(PhysicsComponent.TYPE);
             if (ph != null) {
                 Vector2 v = ph.getVelocity();
                 sb.append(',').append("\"vx\":").append(qfmt.format(v.x)).append(',')
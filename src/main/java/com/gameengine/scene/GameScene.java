@@ -15,6 +15,7 @@ public class GameScene extends Scene {
     private GameLogic gameLogic;
     private Random random;
     private boolean recordingStopped;
+    private BodyStorage bodyStorage;
 
     public GameScene(GameEngine engine) {
         super("GameScene");
@@ -29,6 +30,12 @@ public class GameScene extends Scene {
         recordingStopped = false;
         IRenderer renderer = engine.getRenderer();
         this.gameLogic = new GameLogic(this, renderer);
+        // 可选：GAME_DENSE_STORAGE=1 时 Transform/Physics 数据改用稠密数组存储
+        if (bodyStorage == null && isEnvEnabled("GAME_DENSE_STORAGE")) {
+            bodyStorage = new BodyStorage();
+            addListener(bodyStorage);
+        }
+        if (bodyStorage != null) gameLogic.setBodyStorage(bodyStorage);
 
         // create player
         GameObject player = new GameObject("Player") {
@@ -59,6 +66,15 @@ public class GameScene extends Scene {
         for (int i = 0; i < 10; i++) createEnemy();
     }
 
+    private static boolean isEnvEnabled(String name) {
+        try {
+            String env = System.getenv(name);
+            return env != null && (env.equalsIgnoreCase("true") || env.equals("1"));
+        } catch (SecurityException se) {
+            return false;
+        }
+    }
+
     private void createEnemy() {
         GameObject enemy = new GameObject("Enemy") {
             @Override
@@ -102,7 +102,7 @@ public class MenuScene extends Scene {
                 try {
                     System.setProperty("network.username", username);
                     com.gameengine.net.NetworkBuffer buffer = new com.gameengine.net.NetworkBuffer();
-                    com.gameengine.net.NioClient client = new com.gameengine.net.NioClient("127.0.0.1", 7777, buffer);
+                    com.gameengine.net.NetClient client = com.gameengine.net.NetClient.create("127.0.0.1", 7777, buffer);
                     new Thread(client, "nio-client").start();
                     com.gameengine.example.NetworkGameScene netScene = new com.gameengine.example.NetworkGameScene(engine, engine.getRenderer(), engine.getInputManager(), client, buffer);
                     engine.setScene(netScene);
@@ -145,7 +145,7 @@ public class MenuScene extends Scene {
                         try {
                             System.setProperty("network.username", username);
                             com.gameengine.net.NetworkBuffer buffer = new com.gameengine.net.NetworkBuffer();
-                            com.gameengine.net.NioClient client = new com.gameengine.net.NioClient("127.0.0.1", 7777, buffer);
+                            com.gameengine.net.NetClient client = com.gameengine.net.NetClient.create("127.0.0.1", 7777, buffer);
                             new Thread(client, "nio-client").start();
                             com.gameengine.example.NetworkGameScene netScene = new com.gameengine.example.NetworkGameScene(engine, engine.getRenderer(), engine.getInputManager(), client, buffer);
                             engine.setScene(netScene);
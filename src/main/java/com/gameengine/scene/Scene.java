@@ -2,9 +2,9 @@ package com.gameengine.scene;
 
 import com.gameengine.core.GameObject;
 import com.gameengine.core.Component;
+import com.gameengine.core.ComponentType;
 // 移除具体游戏逻辑的import
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * 场景类，管理游戏对象和组件
@@ -15,7 +15,15 @@ public class Scene {
     private List<GameObject> objectsToAdd;
     private List<GameObject> objectsToRemove;
     private boolean initialized;
-    // 移除未使用的组件索引
+    // 组件查询视图：单类型按 ComponentType id 索引，多类型按类型集合（id 位图）索引
+    private SceneQuery[] singleQueries = new SceneQuery[0];
+    private final Map<BitSet, SceneQuery> multiQueries = new HashMap<>();
+    // 多类型查询的复用查找键，仅在首次创建时复制一份存入 multiQueries
+    private final BitSet queryKey = new BitSet();
+    private final List<SceneQuery> queries = new ArrayList<>();
+    private final List<SceneListener> listeners = new ArrayList<>();
+    // 本帧离开场景的对象（复用，避免每帧分配）
+    private final Set<GameObject> removedScratch = Collections.newSetFromMap(new IdentityHashMap<>());
     
     public Scene(String name) {
         this.name = name;
@@ -46,14 +54,25 @@ public class Scene {
             if (initialized) {
                 obj.initialize();
             }
+            // 初始化完成后再登记到查询视图（initialize 中添加的组件也能被查询到）
+            for (SceneQuery q : queries) {
+                q.onAdded(obj);
+            }
+            for (SceneListener l : listeners) {
+                l.objectAdded(obj);
+            }
         }
         objectsToAdd.clear();
         
         // 移除标记的对象
         for (GameObject obj : objectsToRemove) {
+            for (SceneListener l : listeners) {
+                l.objectRemoved(obj);
+            }
             // call cleanup to safely clear components
             obj.cleanup();
             gameObjects.remove(obj);
+            removedScratch.add(obj);
         }
         objectsToRemove.clear();
         
@@ -65,8 +84,24 @@ public class Scene {
                 obj.update(deltaTime);
             } else {
                 iterator.remove();
+                removedScratch.add(obj);
+                for (SceneListener l : listeners) {
+                    l.objectRemoved(obj);
+                }
             }
         }
+
+        // 统一从查询视图中移除本帧离开场景的对象
+        if (!removedScratch.isEmpty()) {
+            for (SceneQuery q : queries) {
+                q.onRemoved(removedScratch);
+            }
+            removedScratch.clear();
+        }
+
+        for (SceneListener l : listeners) {
+            l.afterUpdate(deltaTime);
+        }
     }
     
     /**
@@ -88,31 +123,91 @@ public class Scene {
     }
     
     /**
-     * 根据组件类型查找游戏对象
+     * 注册场景监听器（对已在场景中的对象补发 objectAdded）
+     */
+    public void addListener(SceneListener listener) {
+        listeners.add(listener);
+        for (GameObject obj : gameObjects) {
+            listener.objectAdded(obj);
+        }
+    }
+
+    public void removeListener(SceneListener listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * 根据组件类型查找游戏对象（返回缓存的只读实时视图，不分配内存）
      */
     public <T extends Component<T>> List<GameObject> findGameObjectsByComponent(Class<T> componentType) {
-        return gameObjects.stream()
-            .filter(obj -> obj.hasComponent(componentType))
-            .collect(Collectors.toList());
+        return query(ComponentType.of(componentType)).getObjects();
     }
     
     /**
-     * 获取所有具有指定组件的游戏对象
+     * 获取所有具有指定组件的游戏对象（返回缓存的只读实时视图，不分配内存）
      */
     public <T extends Component<T>> List<T> getComponents(Class<T> componentType) {
-        return findGameObjectsByComponent(componentType).stream()
-            .map(obj -> obj.getComponent(componentType))
-            .filter(Objects::nonNull)
-            .collect(Collectors.toList());
+        return query(ComponentType.of(componentType)).getComponents();
+    }
+
+    /**
+     * 获取（必要时创建）单组件类型的查询视图
+     */
+    public SceneQuery query(ComponentType<?> type) {
+        int id = type.getId();
+        if (id >= singleQueries.length) {
+            singleQueries = Arrays.copyOf(singleQueries, Math.max(id + 1, ComponentType.count()));
+        }
+        SceneQuery q = singleQueries[id];
+        if (q == null) {
+            q = register(new SceneQuery(new ComponentType<?>[] { type }));
+            singleQueries[id] = q;
+        }
+        return q;
+    }
+
+    /**
+     * 获取（必要时创建）同时具备多个组件类型的查询视图。
+     * 视图对象随场景增量更新，调用方应在初始化时缓存（如 GameLogic），不要每帧调用；
+     * 各类型的组件列表通过 getComponents(type) 获取。仅限主线程调用。
+     */
+    public SceneQuery query(ComponentType<?>... types) {
+        if (types.length == 0) throw new IllegalArgumentException("query requires at least one component type");
+        if (types.length == 1) return query(types[0]);
+        queryKey.clear();
+        for (ComponentType<?> t : types) queryKey.set(t.getId());
+        SceneQuery q = multiQueries.get(queryKey);
+        if (q == null) {
+            q = register(new SceneQuery(types));
+            multiQueries.put((BitSet) queryKey.clone(), q);
+        }
+        return q;
+    }
+
+    private SceneQuery register(SceneQuery q) {
+        for (GameObject obj : gameObjects) {
+            q.onAdded(obj);
+        }
+        queries.add(q);
+        return q;
     }
     
     /**
      * 清空场景
      */
     public void clear() {
+        for (GameObject obj : gameObjects) {
+            for (SceneListener l : listeners) {
+                l.objectRemoved(obj);
+            }
+        }
         gameObjects.clear();
         objectsToAdd.clear();
         objectsToRemove.clear();
+        // 保留已注册的视图（调用方可能缓存了视图对象），只清空内容
+        for (SceneQuery q : queries) {
+            q.clear();
+        }
     }
     
     /**
@@ -0,0 +1,23 @@
+package com.gameengine.scene;
+
+import com.gameengine.core.GameObject;
+
+/**
+ * 场景生命周期监听器，用于让外部存储/系统跟随场景对象的加入与移除
+ */
+public interface SceneListener {
+    /**
+     * 对象已加入场景（initialize 之后）
+     */
+    default void objectAdded(GameObject obj) {}
+
+    /**
+     * 对象即将离开场景（在 cleanup 清空组件之前调用）
+     */
+    default void objectRemoved(GameObject obj) {}
+
+    /**
+     * 场景完成一次对象更新之后调用
+     */
+    default void afterUpdate(float deltaTime) {}
+}
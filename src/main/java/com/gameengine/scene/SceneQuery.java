@@ -0,0 +1,124 @@
+package com.gameengine.scene;
+
+import com.gameengine.core.Component;
+import com.gameengine.core.ComponentType;
+import com.gameengine.core.GameObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 场景查询视图：持有同时具备一组组件类型的对象列表，由 Scene 在应用新增/移除时增量维护。
+ * 列表顺序与场景对象顺序一致；返回的列表是只读的实时视图，查询本身不分配内存。
+ */
+public class SceneQuery {
+    private final ComponentType<?>[] types;
+    private final List<GameObject> objects = new ArrayList<>();
+    // 每个查询类型一列组件实例，与 objects 下标对齐，供 getComponents 直接返回
+    private final List<List<Component<?>>> columns = new ArrayList<>();
+    private final List<GameObject> objectsView = Collections.unmodifiableList(objects);
+    private final List<List<Component<?>>> columnViews = new ArrayList<>();
+
+    SceneQuery(ComponentType<?>[] types) {
+        this.types = types.clone();
+        for (int i = 0; i < types.length; i++) {
+            List<Component<?>> column = new ArrayList<>();
+            columns.add(column);
+            columnViews.add(Collections.unmodifiableList(column));
+        }
+    }
+
+    /**
+     * 对象是否满足本查询（拥有全部组件类型）
+     */
+    boolean matches(GameObject obj) {
+        for (ComponentType<?> type : types) {
+            if (component(obj, type) == null) return false;
+        }
+        return true;
+    }
+
+    void onAdded(GameObject obj) {
+        if (!matches(obj)) return;
+        objects.add(obj);
+        for (int c = 0; c < types.length; c++) {
+            columns.get(c).add(component(obj, types[c]));
+        }
+    }
+
+    /**
+     * 一次性压缩移除本帧离开场景的对象（保持剩余对象的相对顺序）
+     */
+    void onRemoved(Set<GameObject> removed) {
+        int write = 0;
+        int n = objects.size();
+        for (int read = 0; read < n; read++) {
+            GameObject obj = objects.get(read);
+            if (removed.contains(obj)) continue;
+            if (write != read) {
+                objects.set(write, obj);
+                for (List<Component<?>> column : columns) {
+                    column.set(write, column.get(read));
+                }
+            }
+            write++;
+        }
+        for (int i = n - 1; i >= write; i--) {
+            objects.remove(i);
+            for (List<Component<?>> column : columns) {
+                column.remove(i);
+            }
+        }
+    }
+
+    void clear() {
+        objects.clear();
+        for (List<Component<?>> column : columns) {
+            column.clear();
+        }
+    }
+
+    /**
+     * 满足查询的对象（只读实时视图）
+     */
+    public List<GameObject> getObjects() {
+        return objectsView;
+    }
+
+    /**
+     * 单类型查询的组件列表（只读实时视图，与 getObjects 下标对齐）。
+     * 多类型查询按无序类型集合缓存，类型顺序不确定，须改用 getComponents(type)。
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Component<T>> List<T> getComponents() {
+        if (types.length != 1) {
+            throw new IllegalStateException("multi-type query: use getComponents(type)");
+        }
+        return (List<T>) (List<?>) columnViews.get(0);
+    }
+
+    /**
+     * 满足查询的对象上指定类型的组件（该类型必须是本查询的类型之一）
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Component<T>> List<T> getComponents(ComponentType<T> type) {
+        for (int c = 0; c < types.length; c++) {
+            if (types[c] == type) return (List<T>) (List<?>) columnViews.get(c);
+        }
+        throw new IllegalArgumentException(type + " is not part of this query");
+    }
+
+    public int size() {
+        return objects.size();
+    }
+
+    public boolean isEmpty() {
+        return objects.isEmpty();
+    }
+
+    private static <T extends Component<T>> T component(GameObject obj, ComponentType<T> type) {
+        return obj.getComponent(type);
+    }
+}